@@ -0,0 +1,16 @@
+package com.upgrade.volcano.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Same /booking API as VolcanoApplication, but on event loop: WebFlux handlers and R2DBC repositories.
+ */
+@SpringBootApplication
+public class ReactiveVolcanoApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveVolcanoApplication.class, args);
+    }
+
+}
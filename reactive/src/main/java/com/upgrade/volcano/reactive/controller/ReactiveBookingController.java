@@ -0,0 +1,89 @@
+package com.upgrade.volcano.reactive.controller;
+
+import com.upgrade.volcano.dto.BookingRequest;
+import com.upgrade.volcano.dto.BookingResponse;
+import com.upgrade.volcano.dto.UpdateBookingRequest;
+import com.upgrade.volcano.exception.ClientValidationException;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.reactive.service.ReactiveBookingService;
+import com.upgrade.volcano.validation.BookingRequestValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// same contract as BookingController, validation is shared with it
+@RestController
+@RequestMapping("booking")
+public class ReactiveBookingController {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveBookingController.class);
+
+    private final ReactiveBookingService bookingService;
+
+    public ReactiveBookingController(ReactiveBookingService bookingService) {
+        this.bookingService = bookingService;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<byte[]>> getAvailability(
+            @RequestParam(required = false) Integer campsiteId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+    ) {
+        defaultCampsite(campsiteId);
+        DateRange window = BookingRequestValidator.availabilityWindow(startDate, endDate);
+        return bookingService.getAvailability(window.startDate(), window.endDate())
+                .map(json -> ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json));
+    }
+
+    @PostMapping
+    public Mono<BookingResponse> book(@RequestBody @Valid BookingRequest r) {
+        BookingRequestValidator.validateBookingRequest(r);
+        defaultCampsite(r.getCampsiteId());
+
+        return bookingService.book(r.getStartDate(), r.getEndDate(), r.getEmail(), r.getName())
+                .doOnNext(id -> log.info("Booking for {} and dates {} - {} was created successfully",
+                        r.getEmail(), r.getStartDate(), r.getEndDate()))
+                .map(BookingResponse::new);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Void>> updateBooking(@PathVariable String id, @RequestBody @Valid UpdateBookingRequest r) {
+        UUID bookingId = BookingRequestValidator.bookingId(id);
+        BookingRequestValidator.validateUpdateRequest(r);
+
+        return bookingService.update(bookingId, r.getStartDate(), r.getEndDate(), r.getEmail(), r.getName())
+                .thenReturn(ResponseEntity.ok().build());
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> cancelBooking(@PathVariable String id) {
+        UUID bookingId = BookingRequestValidator.bookingId(id);
+
+        return bookingService.cancel(bookingId).thenReturn(ResponseEntity.ok().build());
+    }
+
+    // reactive variant serves only the default campsite
+    private static void defaultCampsite(Integer campsiteId) {
+        if (campsiteId != null && campsiteId != Campsite.DEFAULT_ID) {
+            throw new ClientValidationException("Campsite %d does not exist".formatted(campsiteId));
+        }
+    }
+}
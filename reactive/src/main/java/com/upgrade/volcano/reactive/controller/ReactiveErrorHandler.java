@@ -0,0 +1,69 @@
+package com.upgrade.volcano.reactive.controller;
+
+import com.upgrade.volcano.dto.ErrorResponse;
+import com.upgrade.volcano.exception.BaseException;
+import com.upgrade.volcano.exception.ClientValidationException;
+import com.upgrade.volcano.exception.ErrorCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.stream.Collectors;
+
+// maps errors to the same statuses and codes as ControllerErrorHandler does
+@RestControllerAdvice
+public class ReactiveErrorHandler {
+    private static final Logger log = LoggerFactory.getLogger("default");
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ErrorResponse> handleServerError(Exception e) {
+        log.error("Got internal error", e);
+        return ResponseEntity
+                .status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ErrorResponse("Internal error", ErrorCode.INTERNAL_ERROR));
+    }
+
+    // missing parameters, wrong types and unreadable body
+    @ExceptionHandler({ServerWebInputException.class, IllegalArgumentException.class})
+    public ResponseEntity<ErrorResponse> handleCommonValidationErrors(Exception e) {
+        log.error(e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(e.getMessage(), ErrorCode.MALFORMED_REQUEST_ERROR));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleBindException(WebExchangeBindException ex) {
+        log.error(ex.getMessage());
+        String errors = ex.getBindingResult()
+                .getFieldErrors()
+                .stream()
+                .map(e -> e.getField() + ": " + e.getDefaultMessage())
+                .collect(Collectors.joining("; "));
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(errors, ErrorCode.VALIDATION_ERROR));
+    }
+
+    @ExceptionHandler(ClientValidationException.class)
+    public ResponseEntity<ErrorResponse> handleClientValidationException(BaseException e) {
+        log.error(e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(new ErrorResponse(e.getMessage(), e.getCode()));
+    }
+
+    @ExceptionHandler(BaseException.class)
+    public ResponseEntity<ErrorResponse> handleBaseException(BaseException e) {
+        log.error(e.getMessage());
+        return ResponseEntity
+                .status(HttpStatus.NOT_ACCEPTABLE)
+                .body(new ErrorResponse(e.getMessage(), e.getCode()));
+    }
+}
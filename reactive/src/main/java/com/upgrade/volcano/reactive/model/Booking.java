@@ -0,0 +1,49 @@
+package com.upgrade.volcano.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+// one row per booked day, id is generated by DB
+@Table("booking")
+public class Booking {
+
+    @Id
+    private UUID id;
+    private LocalDate date;
+    private UUID bookingId;
+
+    public Booking() {
+    }
+
+    public Booking(LocalDate date, UUID bookingId) {
+        this.date = date;
+        this.bookingId = bookingId;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    public UUID getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(UUID bookingId) {
+        this.bookingId = bookingId;
+    }
+}
@@ -0,0 +1,47 @@
+package com.upgrade.volcano.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.util.UUID;
+
+@Table("booking_to_guest")
+public class BookingToGuest {
+
+    @Id
+    private UUID id;
+    private UUID bookingId;
+    private UUID guestId;
+
+    public BookingToGuest() {
+    }
+
+    public BookingToGuest(UUID bookingId, UUID guestId) {
+        this.bookingId = bookingId;
+        this.guestId = guestId;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public UUID getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(UUID bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public UUID getGuestId() {
+        return guestId;
+    }
+
+    public void setGuestId(UUID guestId) {
+        this.guestId = guestId;
+    }
+}
@@ -0,0 +1,47 @@
+package com.upgrade.volcano.reactive.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.util.UUID;
+
+@Table("guest")
+public class Guest {
+
+    @Id
+    private UUID id;
+    private String email;
+    private String name;
+
+    public Guest() {
+    }
+
+    public Guest(String email, String name) {
+        this.email = email;
+        this.name = name;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,23 @@
+package com.upgrade.volcano.reactive.repository;
+
+import com.upgrade.volcano.reactive.model.Booking;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+public interface BookingRepository extends ReactiveCrudRepository<Booking, UUID> {
+
+    @Query("select * from booking where campsite_id = :campsiteId and date between :startDate and :endDate order by date")
+    Flux<Booking> findAllByCampsiteAndDateBetween(int campsiteId, LocalDate startDate, LocalDate endDate);
+
+    Mono<Boolean> existsByBookingId(UUID bookingId);
+
+    @Modifying
+    @Query("delete from booking where booking_id = :bookingId")
+    Mono<Integer> deleteByBookingId(UUID bookingId);
+}
@@ -0,0 +1,9 @@
+package com.upgrade.volcano.reactive.repository;
+
+import com.upgrade.volcano.reactive.model.BookingToGuest;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+
+import java.util.UUID;
+
+public interface BookingToGuestRepository extends ReactiveCrudRepository<BookingToGuest, UUID> {
+}
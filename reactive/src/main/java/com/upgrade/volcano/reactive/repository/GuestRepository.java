@@ -0,0 +1,24 @@
+package com.upgrade.volcano.reactive.repository;
+
+import com.upgrade.volcano.reactive.model.Guest;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+// guest is found through the link, the same set based statements as in BookingJdbcDao
+public interface GuestRepository extends ReactiveCrudRepository<Guest, UUID> {
+
+    // link is removed by cascade
+    @Modifying
+    @Query("delete from guest where id = (select guest_id from booking_to_guest where booking_id = :bookingId)")
+    Mono<Integer> deleteByBookingId(UUID bookingId);
+
+    // null keeps current value
+    @Modifying
+    @Query("update guest set email = coalesce(:email, email), name = coalesce(:name, name) " +
+            "where id = (select guest_id from booking_to_guest where booking_id = :bookingId)")
+    Mono<Integer> updateByBookingId(UUID bookingId, String email, String name);
+}
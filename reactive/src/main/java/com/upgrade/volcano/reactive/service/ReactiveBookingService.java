@@ -0,0 +1,126 @@
+package com.upgrade.volcano.reactive.service;
+
+import com.upgrade.volcano.dto.AvailabilitySnapshot;
+import com.upgrade.volcano.exception.BookingDoesNotExist;
+import com.upgrade.volcano.exception.BookingForDatesExist;
+import com.upgrade.volcano.exception.BookingForUserExist;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.reactive.model.Booking;
+import com.upgrade.volcano.reactive.model.BookingToGuest;
+import com.upgrade.volcano.reactive.model.Guest;
+import com.upgrade.volcano.reactive.repository.BookingRepository;
+import com.upgrade.volcano.reactive.repository.BookingToGuestRepository;
+import com.upgrade.volcano.reactive.repository.GuestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * The same rules as BookingService: business validation is done by unique indexes during inserts and
+ * number of changed rows tells if booking exists. Availability is read from DB, there is no index or cache here.
+ */
+@Service
+public class ReactiveBookingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveBookingService.class);
+
+    private final BookingRepository bookingRepository;
+    private final GuestRepository guestRepository;
+    private final BookingToGuestRepository bookingToGuestRepository;
+
+    public ReactiveBookingService(BookingRepository bookingRepository, GuestRepository guestRepository,
+                                  BookingToGuestRepository bookingToGuestRepository) {
+        this.bookingRepository = bookingRepository;
+        this.guestRepository = guestRepository;
+        this.bookingToGuestRepository = bookingToGuestRepository;
+    }
+
+    // only the default campsite is served here, booking rows get it from the column default.
+    // json of AvailabilityResponse, encoded the same way as in servlet application
+    public Mono<byte[]> getAvailability(LocalDate startDate, LocalDate endDate) {
+        return bookingRepository.findAllByCampsiteAndDateBetween(Campsite.DEFAULT_ID, startDate, endDate)
+                .map(Booking::getDate)
+                .collectList()
+                .map(bookedDates -> AvailabilitySnapshot.of(0, startDate, endDate, bookedDates).json());
+    }
+
+    @Transactional
+    public Mono<UUID> book(LocalDate startDate, LocalDate endDate, String email, String name) {
+        UUID bookingId = UUID.randomUUID();
+        return guestRepository.save(new Guest(email, name))
+                // unique email of the guest
+                .onErrorMap(DataIntegrityViolationException.class, e -> new BookingForUserExist(email))
+                .flatMap(guest -> bookDates(startDate, endDate, bookingId)
+                        .then(bookingToGuestRepository.save(new BookingToGuest(bookingId, guest.getId()))))
+                .thenReturn(bookingId);
+    }
+
+    @Transactional
+    public Mono<Void> cancel(UUID bookingId) {
+        return bookingRepository.deleteByBookingId(bookingId)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new BookingDoesNotExist(bookingId))
+                        : guestRepository.deleteByBookingId(bookingId))
+                .doOnNext(deleted -> {
+                    if (deleted == 0) {
+                        log.error("Guest or booking to guest link doesn't exist by booking id %s".formatted(bookingId));
+                    }
+                })
+                .then();
+    }
+
+    @Transactional
+    public Mono<Void> update(UUID bookingId, LocalDate startDate, LocalDate endDate, String email, String name) {
+        boolean changeDates = startDate != null && endDate != null;
+        boolean changeGuest = StringUtils.hasText(email) || StringUtils.hasText(name);
+
+        // old days are deleted before new ones are inserted, so booking can be moved to overlapping dates
+        Mono<Void> dates = !changeDates ? Mono.empty() : bookingRepository.deleteByBookingId(bookingId)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.error(new BookingDoesNotExist(bookingId))
+                        : bookDates(startDate, endDate, bookingId));
+
+        Mono<Void> guest = !changeGuest ? Mono.empty() : guestRepository.updateByBookingId(
+                        bookingId,
+                        StringUtils.hasText(email) ? email : null,
+                        StringUtils.hasText(name) ? name : null)
+                // new email is already used by another guest
+                .onErrorMap(DataIntegrityViolationException.class, e -> new BookingForUserExist(email))
+                .flatMap(updated -> updated == 0 ? Mono.error(new BookingDoesNotExist(bookingId)) : Mono.empty());
+
+        // nothing to change, but client still should know if there is no such booking
+        Mono<Void> exists = changeDates || changeGuest ? Mono.empty() : bookingRepository.existsByBookingId(bookingId)
+                .flatMap(found -> found ? Mono.empty() : Mono.error(new BookingDoesNotExist(bookingId)));
+
+        return dates.then(guest).then(exists);
+    }
+
+    // unique_booking_date rejects days which are taken
+    private Mono<Void> bookDates(LocalDate startDate, LocalDate endDate, UUID bookingId) {
+        List<Booking> days = startDate.datesUntil(endDate.plusDays(1))
+                .map(d -> new Booking(d, bookingId))
+                .collect(Collectors.toList());
+        return bookingRepository.saveAll(days)
+                .then()
+                .onErrorResume(DataIntegrityViolationException.class, e -> bookingForDatesExist(bookingId, startDate, endDate));
+    }
+
+    private Mono<Void> bookingForDatesExist(UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        return bookingRepository.findAllByCampsiteAndDateBetween(Campsite.DEFAULT_ID, startDate, endDate)
+                .filter(b -> !b.getBookingId().equals(bookingId))
+                .map(Booking::getDate)
+                .collectList()
+                .flatMap(conflicts -> Mono.error(new BookingForDatesExist(conflicts.isEmpty()
+                        ? startDate.datesUntil(endDate.plusDays(1)).collect(Collectors.toList())
+                        : conflicts)));
+    }
+}
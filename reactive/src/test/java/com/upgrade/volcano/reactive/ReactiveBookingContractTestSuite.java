@@ -0,0 +1,31 @@
+package com.upgrade.volcano.reactive;
+
+import com.upgrade.volcano.contract.BookingContract;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+// the same contract as ServletBookingContractTestSuite in servlet application
+@SpringBootTest
+@AutoConfigureWebTestClient
+public class ReactiveBookingContractTestSuite extends BookingContract {
+
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Override
+    protected WebTestClient client() {
+        return webTestClient;
+    }
+
+    @Override
+    protected void deleteAllBookings() {
+        databaseClient.sql("delete from booking").then()
+                .then(databaseClient.sql("delete from guest").then())
+                .block();
+    }
+}
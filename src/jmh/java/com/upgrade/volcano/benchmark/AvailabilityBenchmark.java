@@ -0,0 +1,99 @@
+package com.upgrade.volcano.benchmark;
+
+import com.upgrade.volcano.cache.AvailabilityKey;
+import com.upgrade.volcano.dto.AvailabilityResponse;
+import com.upgrade.volcano.dto.AvailabilitySnapshot;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AvailabilityBenchmark {
+
+    // default one month window, about half of its days are booked by the dataset
+    @State(Scope.Thread)
+    public static class Window {
+        DateRange window;
+        AvailabilityKey key;
+        List<LocalDate> bookedDates;
+        MockHttpServletRequest request;
+        // request of a client which already has current availability of the window
+        MockHttpServletRequest revalidation;
+
+        @Setup(Level.Trial)
+        public void setUp(BookingContext c) {
+            window = DateRange.defaultWindow();
+            bookedDates = c.bookingService.getBookedDates(Campsite.DEFAULT_ID, window.startDate(), window.endDate());
+            request = new MockHttpServletRequest();
+            revalidation = new MockHttpServletRequest();
+            String eTag = c.bookingController.getAvailability(null, window.startDate(), window.endDate(), webRequest(request))
+                    .getHeaders().getETag();
+            revalidation.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+            // cold cache benchmark evicts by this key, with a key the cache doesn't use it would measure warm cache
+            key = new AvailabilityKey(Campsite.DEFAULT_ID, window);
+            c.availabilityCache.evict(key);
+            c.bookingController.getAvailability(null, window.startDate(), window.endDate(), webRequest(request));
+            if (c.availabilityCache.get(key) == null) {
+                throw new IllegalStateException("Availability of %s is not cached under %s".formatted(window, key));
+            }
+        }
+
+        // web request keeps result of the etag check, so every call needs a new one
+        ServletWebRequest webRequest(MockHttpServletRequest request) {
+            return new ServletWebRequest(request);
+        }
+    }
+
+    @Benchmark
+    public List<LocalDate> getBookedDates(BookingContext c, Window w) {
+        return c.bookingService.getBookedDates(Campsite.DEFAULT_ID, w.window.startDate(), w.window.endDate());
+    }
+
+    @Benchmark
+    public AvailabilityResponse availabilityResponse(Window w) {
+        return new AvailabilityResponse(w.bookedDates, w.window.startDate(), w.window.endDate());
+    }
+
+    // what is done on cache miss instead of building AvailabilityResponse
+    @Benchmark
+    public AvailabilitySnapshot availabilitySnapshot(Window w) {
+        return AvailabilitySnapshot.of(0, w.window.startDate(), w.window.endDate(), w.bookedDates);
+    }
+
+    @Benchmark
+    public Object getAvailabilityWarmCache(BookingContext c, Window w) {
+        return c.bookingController.getAvailability(null, w.window.startDate(), w.window.endDate(), w.webRequest(w.request));
+    }
+
+    @Benchmark
+    public Object getAvailabilityNotModified(BookingContext c, Window w) {
+        return c.bookingController.getAvailability(null, w.window.startDate(), w.window.endDate(), w.webRequest(w.revalidation));
+    }
+
+    @Benchmark
+    public Object getAvailabilityColdCache(BookingContext c, Window w) {
+        c.availabilityCache.evict(w.key);
+        return c.bookingController.getAvailability(null, w.window.startDate(), w.window.endDate(), w.webRequest(w.request));
+    }
+}
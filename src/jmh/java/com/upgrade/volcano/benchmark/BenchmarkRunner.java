@@ -0,0 +1,35 @@
+package com.upgrade.volcano.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs all benchmarks once for every thread count from benchmark.threads property and writes one json result file
+ * per thread count into benchmark.output directory. These files can be compared between builds.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("benchmark.include", ".*Benchmark.*");
+        Path output = Path.of(System.getProperty("benchmark.output", "target/jmh"));
+        Files.createDirectories(output);
+
+        for (String threadCount : System.getProperty("benchmark.threads", "1").split(",")) {
+            int threads = Integer.parseInt(threadCount.trim());
+            Options options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(output.resolve("result-threads-%d.json".formatted(threads)).toString())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
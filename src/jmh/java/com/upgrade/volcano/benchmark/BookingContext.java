@@ -0,0 +1,129 @@
+package com.upgrade.volcano.benchmark;
+
+import com.upgrade.volcano.VolcanoApplication;
+import com.upgrade.volcano.controller.BookingController;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Application started once per trial with datasetSize bookings already in DB. Bookings stay inside the month which can
+ * be booked: every campsite of the dataset has every other day starting tomorrow booked, so availability windows have
+ * booked and free days mixed and a bigger dataset is more campsites, not days years ahead. Benchmark threads write
+ * to reserved campsites, each to its own, so they don't fail on each other. Reserved campsite has the same pattern
+ * after its first FREE_DAYS days, which are left for the writes.
+ */
+@State(Scope.Benchmark)
+public class BookingContext {
+
+    @Param({"100", "5000"})
+    public int datasetSize;
+
+    // days 1, 3, ... 29 after today
+    private static final int BOOKINGS_PER_CAMPSITE = 15;
+    static final int FREE_DAYS = 7;
+    private static final int RESERVED_CAMPSITES = 64;
+
+    ConfigurableApplicationContext context;
+    BookingService bookingService;
+    BookingController bookingController;
+    Cache availabilityCache;
+
+    private int firstReservedCampsite;
+    private final AtomicInteger reservedCampsites = new AtomicInteger();
+    private final AtomicInteger emailCounter = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(VolcanoApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "springfox.documentation.enabled=false",
+                        "logging.level.root=WARN"
+                )
+                .run();
+        bookingService = context.getBean(BookingService.class);
+        bookingController = context.getBean(BookingController.class);
+        availabilityCache = context.getBean(CacheManager.class).getCache("availability");
+
+        populate(context.getBean(JdbcTemplate.class));
+        context.getBean(AvailabilityIndex.class).load();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    // campsite which nobody else will touch, its FREE_DAYS days starting from firstFreeDay are not booked
+    int reserveCampsite() {
+        int reserved = reservedCampsites.getAndIncrement();
+        if (reserved >= RESERVED_CAMPSITES) {
+            throw new IllegalStateException("Only %d campsites are reserved for benchmark threads".formatted(RESERVED_CAMPSITES));
+        }
+        return firstReservedCampsite + reserved;
+    }
+
+    LocalDate firstFreeDay() {
+        return LocalDate.now().plusDays(1);
+    }
+
+    String nextEmail() {
+        return "benchmark%d@email.com".formatted(emailCounter.incrementAndGet());
+    }
+
+    private void populate(JdbcTemplate jdbcTemplate) {
+        // the default campsite is the first one of the dataset
+        firstReservedCampsite = Campsite.DEFAULT_ID + (datasetSize + BOOKINGS_PER_CAMPSITE - 1) / BOOKINGS_PER_CAMPSITE;
+        List<Object[]> campsites = new ArrayList<>();
+        for (int id = Campsite.DEFAULT_ID + 1; id < firstReservedCampsite + RESERVED_CAMPSITES; id++) {
+            campsites.add(new Object[]{id, "Campsite " + id});
+        }
+        List<Object[]> bookings = new ArrayList<>();
+        List<Object[]> guests = new ArrayList<>();
+        List<Object[]> links = new ArrayList<>();
+        for (int i = 0; i < datasetSize; i++) {
+            addBooking(Campsite.DEFAULT_ID + i / BOOKINGS_PER_CAMPSITE, 1 + 2 * (i % BOOKINGS_PER_CAMPSITE), bookings, guests, links);
+        }
+        for (int id = firstReservedCampsite; id < firstReservedCampsite + RESERVED_CAMPSITES; id++) {
+            for (int day = 1; day < 2 * BOOKINGS_PER_CAMPSITE; day += 2) {
+                if (day > FREE_DAYS) {
+                    addBooking(id, day, bookings, guests, links);
+                }
+            }
+        }
+        jdbcTemplate.batchUpdate("merge into campsite(id, name) key(id) values (?, ?)", campsites);
+        jdbcTemplate.batchUpdate("insert into booking(campsite_id, date, booking_id) values (?, ?, ?)", bookings);
+        jdbcTemplate.batchUpdate("insert into guest(id, email, name) values (?, ?, ?)", guests);
+        jdbcTemplate.batchUpdate("insert into booking_to_guest(booking_id, guest_id) values (?, ?)", links);
+    }
+
+    // one day booking of its own guest
+    private void addBooking(int campsiteId, int day, List<Object[]> bookings, List<Object[]> guests, List<Object[]> links) {
+        UUID bookingId = UUID.randomUUID();
+        UUID guestId = UUID.randomUUID();
+        bookings.add(new Object[]{campsiteId, LocalDate.now().plusDays(day), bookingId});
+        guests.add(new Object[]{guestId, nextEmail(), "dataset"});
+        links.add(new Object[]{bookingId, guestId});
+    }
+}
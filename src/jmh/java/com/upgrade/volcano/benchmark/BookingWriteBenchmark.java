@@ -0,0 +1,98 @@
+package com.upgrade.volcano.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookingWriteBenchmark {
+
+    // booking made by the benchmark is cancelled after each invocation, so the same days can be booked again
+    @State(Scope.Thread)
+    public static class NewBooking {
+        int campsiteId;
+        LocalDate startDate;
+        UUID bookingId;
+
+        @Setup(Level.Trial)
+        public void reserve(BookingContext c) {
+            campsiteId = c.reserveCampsite();
+            startDate = c.firstFreeDay();
+        }
+
+        @TearDown(Level.Invocation)
+        public void cancel(BookingContext c) {
+            c.bookingService.cancel(bookingId);
+        }
+    }
+
+    // fresh booking is created before each invocation, so there is always something to cancel
+    @State(Scope.Thread)
+    public static class ExistingBooking {
+        int campsiteId;
+        LocalDate startDate;
+        UUID bookingId;
+
+        @Setup(Level.Trial)
+        public void reserve(BookingContext c) {
+            campsiteId = c.reserveCampsite();
+            startDate = c.firstFreeDay();
+        }
+
+        @Setup(Level.Invocation)
+        public void book(BookingContext c) {
+            bookingId = c.bookingService.book(campsiteId, startDate, startDate.plusDays(2), c.nextEmail(), "benchmark");
+        }
+    }
+
+    // one booking per thread which jumps back and forth between two non overlapping date ranges
+    @State(Scope.Thread)
+    public static class MovingBooking {
+        int campsiteId;
+        LocalDate startDate;
+        UUID bookingId;
+        boolean moved;
+
+        @Setup(Level.Trial)
+        public void book(BookingContext c) {
+            campsiteId = c.reserveCampsite();
+            startDate = c.firstFreeDay();
+            bookingId = c.bookingService.book(campsiteId, startDate, startDate.plusDays(2), c.nextEmail(), "benchmark");
+        }
+    }
+
+    @Benchmark
+    public UUID book(BookingContext c, NewBooking b) {
+        b.bookingId = c.bookingService.book(b.campsiteId, b.startDate, b.startDate.plusDays(2), c.nextEmail(), "benchmark");
+        return b.bookingId;
+    }
+
+    @Benchmark
+    public void cancel(BookingContext c, ExistingBooking b) {
+        c.bookingService.cancel(b.bookingId);
+    }
+
+    @Benchmark
+    public void update(BookingContext c, MovingBooking b) {
+        LocalDate startDate = b.moved ? b.startDate : b.startDate.plusDays(3);
+        c.bookingService.update(b.bookingId, startDate, startDate.plusDays(2), null, null);
+        b.moved = !b.moved;
+    }
+}
@@ -0,0 +1,90 @@
+package com.upgrade.volcano.benchmark;
+
+import com.upgrade.volcano.exception.BookingForDatesExist;
+import com.upgrade.volcano.service.DateClaimArbiter;
+import com.upgrade.volcano.service.DateClaimArbiter.DateClaim;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * All threads book the same days, thread goes to reserved campsite number thread index modulo campsites. With one
+ * campsite threads compete for the days and most of them are rejected by the claim, with a campsite per thread every
+ * booking wins, so booked/s shows how writes scale with number of campsites.
+ * Booking goes the same way as in the controller: claim of the days, then transaction. It is cancelled right away,
+ * so the days are free for the next invocation.
+ */
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CampsiteBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Campsites {
+        @Param({"1", "4", "16"})
+        public int campsites;
+
+        DateClaimArbiter dateClaimArbiter;
+        int[] campsiteIds;
+        LocalDate startDate;
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void reserve(BookingContext c) {
+            campsiteIds = new int[campsites];
+            for (int i = 0; i < campsites; i++) {
+                campsiteIds[i] = c.reserveCampsite();
+            }
+            dateClaimArbiter = c.context.getBean(DateClaimArbiter.class);
+            startDate = c.firstFreeDay();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Site {
+        int campsiteId;
+
+        @Setup(Level.Trial)
+        public void assign(Campsites s) {
+            campsiteId = s.campsiteIds[s.threads.getAndIncrement() % s.campsites];
+        }
+    }
+
+    // reported per second next to the benchmark itself
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Outcomes {
+        public long booked;
+        public long rejected;
+    }
+
+    @Benchmark
+    public void bookSameDates(BookingContext c, Campsites s, Site site, Outcomes o) {
+        UUID bookingId;
+        try (DateClaim claim = s.dateClaimArbiter.claim(site.campsiteId, null, s.startDate, s.startDate.plusDays(2))) {
+            bookingId = c.bookingService.book(site.campsiteId, s.startDate, s.startDate.plusDays(2), c.nextEmail(), "benchmark");
+        } catch (BookingForDatesExist e) {
+            o.rejected++;
+            return;
+        }
+        c.bookingService.cancel(bookingId);
+        o.booked++;
+    }
+}
@@ -0,0 +1,135 @@
+package com.upgrade.volcano.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.upgrade.volcano.dto.BookingRequest;
+import com.upgrade.volcano.dto.BookingResponse;
+import com.upgrade.volcano.dto.ErrorResponse;
+import com.upgrade.volcano.dto.UpdateBookingRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Calls booking endpoints over real http and records latency and outcome of every call.
+ */
+public class BookingApi {
+
+    static final String INTERNAL_ERROR = "INTERNAL_ERROR";
+    static final String IO_ERROR = "IO_ERROR";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final String baseUrl;
+    private final LatencyRecorder recorder;
+
+    public BookingApi(int port, LatencyRecorder recorder) {
+        this.baseUrl = "http://localhost:%d/booking".formatted(port);
+        this.recorder = recorder;
+    }
+
+    // returns etag of the response, or the same etag if nothing changed
+    public String getAvailability(String eTag) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl)).GET();
+        if (eTag != null) {
+            request.header("If-None-Match", eTag);
+        }
+        HttpResponse<String> response = send("GET /booking", request.build());
+        if (response == null || response.statusCode() != 200) {
+            return eTag;
+        }
+        return response.headers().firstValue("ETag").orElse(null);
+    }
+
+    public UUID book(String endpoint, LocalDate startDate, LocalDate endDate, String email) {
+        var r = new BookingRequest();
+        r.setStartDate(startDate);
+        r.setEndDate(endDate);
+        r.setEmail(email);
+        r.setName("load");
+        HttpResponse<String> response = send(endpoint, jsonRequest(URI.create(baseUrl))
+                .POST(HttpRequest.BodyPublishers.ofString(write(r))).build());
+        if (response == null || response.statusCode() != 200) {
+            return null;
+        }
+        return read(response.body(), BookingResponse.class).bookingId();
+    }
+
+    public boolean update(UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        var r = new UpdateBookingRequest();
+        r.setStartDate(startDate);
+        r.setEndDate(endDate);
+        HttpResponse<String> response = send("PUT /booking/{id}", jsonRequest(uri(bookingId))
+                .PUT(HttpRequest.BodyPublishers.ofString(write(r))).build());
+        return response != null && response.statusCode() == 200;
+    }
+
+    public boolean cancel(UUID bookingId) {
+        HttpResponse<String> response = send("DELETE /booking/{id}", HttpRequest.newBuilder(uri(bookingId)).DELETE().build());
+        return response != null && response.statusCode() == 200;
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request) {
+        long start = System.nanoTime();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            recorder.record(endpoint, start, IO_ERROR);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        recorder.record(endpoint, start, outcome(response));
+        return response;
+    }
+
+    // error code tells apart expected rejections (dates are taken) from failures
+    private String outcome(HttpResponse<String> response) {
+        int status = response.statusCode();
+        if (status < 400) {
+            return String.valueOf(status);
+        }
+        try {
+            return String.valueOf(read(response.body(), ErrorResponse.class).code());
+        } catch (RuntimeException e) {
+            return status >= 500 ? INTERNAL_ERROR : String.valueOf(status);
+        }
+    }
+
+    private URI uri(UUID bookingId) {
+        return URI.create(baseUrl + "/" + bookingId);
+    }
+
+    private HttpRequest.Builder jsonRequest(URI uri) {
+        return HttpRequest.newBuilder(uri).header("Content-Type", "application/json");
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> type) {
+        try {
+            return objectMapper.readValue(body, type);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
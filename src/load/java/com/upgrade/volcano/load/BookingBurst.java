@@ -0,0 +1,96 @@
+package com.upgrade.volcano.load;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every interval burstSize clients try to book the same dates at the same moment, so all of them but one end up
+ * on unique_booking_date. The winner is cancelled right after, so dates are free for the next bursts.
+ */
+public class BookingBurst implements Runnable {
+
+    private final BookingApi api;
+    private final LoadSettings settings;
+    private final ExecutorService senders;
+    private final AtomicInteger emailCounter = new AtomicInteger();
+
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong withoutWinner = new AtomicLong();
+    private final AtomicLong withSeveralWinners = new AtomicLong();
+
+    public BookingBurst(BookingApi api, LoadSettings settings) {
+        this.api = api;
+        this.settings = settings;
+        this.senders = Executors.newFixedThreadPool(settings.burstSize());
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                burst();
+                Thread.sleep(settings.burstIntervalMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            senders.shutdownNow();
+        }
+    }
+
+    public void reset() {
+        count.set(0);
+        withoutWinner.set(0);
+        withSeveralWinners.set(0);
+    }
+
+    public LoadReport.BurstReport report() {
+        return new LoadReport.BurstReport(count.get(), withoutWinner.get(), withSeveralWinners.get());
+    }
+
+    private void burst() throws InterruptedException {
+        LocalDate startDate = LoadClient.randomStartDate(ThreadLocalRandom.current());
+        LocalDate endDate = startDate.plusDays(1);
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Future<UUID>> attempts = new ArrayList<>();
+        for (int i = 0; i < settings.burstSize(); i++) {
+            String email = "burst-%d@email.com".formatted(emailCounter.incrementAndGet());
+            attempts.add(senders.submit(() -> {
+                start.await();
+                return api.book("POST /booking burst", startDate, endDate, email);
+            }));
+        }
+        start.countDown();
+
+        List<UUID> winners = new ArrayList<>();
+        for (Future<UUID> attempt : attempts) {
+            try {
+                winners.add(attempt.get());
+            } catch (ExecutionException e) {
+                // failed call is already recorded as an outcome
+            }
+        }
+        winners.removeIf(Objects::isNull);
+
+        count.incrementAndGet();
+        if (winners.isEmpty()) {
+            // dates could be taken by regular clients before the burst
+            withoutWinner.incrementAndGet();
+        } else if (winners.size() > 1) {
+            withSeveralWinners.incrementAndGet();
+        }
+        winners.forEach(api::cancel);
+    }
+}
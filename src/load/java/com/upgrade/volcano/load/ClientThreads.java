@@ -0,0 +1,43 @@
+package com.upgrade.volcano.load;
+
+import java.lang.reflect.Method;
+
+/**
+ * Clients run on virtual threads if java has them, so many clients don't cost many platform threads and don't hide
+ * the difference between server modes. Project is compiled for an older java, so virtual threads are reached
+ * through reflection.
+ */
+final class ClientThreads {
+
+    private static final Object VIRTUAL_BUILDER;
+    private static final Method UNSTARTED;
+
+    static {
+        Object builder = null;
+        Method unstarted = null;
+        try {
+            builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+        } catch (ReflectiveOperationException e) {
+            // older java, clients use platform threads
+        }
+        VIRTUAL_BUILDER = builder;
+        UNSTARTED = unstarted;
+    }
+
+    private ClientThreads() {
+    }
+
+    static Thread newThread(Runnable client, String name) {
+        if (VIRTUAL_BUILDER == null) {
+            return new Thread(client, name);
+        }
+        try {
+            Thread thread = (Thread) UNSTARTED.invoke(VIRTUAL_BUILDER, client);
+            thread.setName(name);
+            return thread;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can't create virtual thread", e);
+        }
+    }
+}
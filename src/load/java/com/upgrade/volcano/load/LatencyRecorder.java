@@ -0,0 +1,66 @@
+package com.upgrade.volcano.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram and outcome counters per endpoint. Outcome is http status for successful calls and error code
+ * from the response for failed ones, so date conflicts and internal errors are counted separately.
+ */
+public class LatencyRecorder {
+
+    // anything longer than a minute is a hang, not latency
+    private static final long HIGHEST_TRACKABLE = TimeUnit.MINUTES.toMicros(1);
+
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private volatile long startedAt = System.nanoTime();
+
+    public void record(String endpoint, long startNanos, String outcome) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos);
+        Endpoint e = endpoints.computeIfAbsent(endpoint, k -> new Endpoint());
+        e.latency.recordValue(Math.min(micros, HIGHEST_TRACKABLE));
+        e.outcomes.computeIfAbsent(outcome, k -> new LongAdder()).increment();
+    }
+
+    // drops what was recorded during warm up
+    public void reset() {
+        endpoints.clear();
+        startedAt = System.nanoTime();
+    }
+
+    public Map<String, LoadReport.EndpointReport> report() {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        Map<String, LoadReport.EndpointReport> result = new TreeMap<>();
+        endpoints.forEach((name, e) -> {
+            Histogram h = e.latency.copy();
+            Map<String, Long> outcomes = new TreeMap<>();
+            e.outcomes.forEach((outcome, count) -> outcomes.put(outcome, count.sum()));
+            result.put(name, new LoadReport.EndpointReport(
+                    h.getTotalCount(),
+                    h.getTotalCount() / seconds,
+                    millis(h.getValueAtPercentile(50)),
+                    millis(h.getValueAtPercentile(99)),
+                    millis(h.getValueAtPercentile(99.9)),
+                    millis(h.getMaxValue()),
+                    outcomes
+            ));
+        });
+        return result;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    private static final class Endpoint {
+        private final Histogram latency = new ConcurrentHistogram(HIGHEST_TRACKABLE, 3);
+        private final ConcurrentMap<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    }
+}
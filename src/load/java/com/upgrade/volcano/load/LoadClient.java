@@ -0,0 +1,67 @@
+package com.upgrade.volcano.load;
+
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One simulated front end. Mostly it polls availability (with etag of the last answer, as a browser would), sometimes
+ * it books dates, and when it has a booking it moves or cancels it. So every client keeps at most one booking and
+ * dates keep being freed for others.
+ */
+public class LoadClient implements Runnable {
+
+    private final int id;
+    private final BookingApi api;
+    private final LoadSettings settings;
+
+    private String eTag;
+    private UUID bookingId;
+    private int bookings;
+
+    public LoadClient(int id, BookingApi api, LoadSettings settings) {
+        this.id = id;
+        this.api = api;
+        this.settings = settings;
+    }
+
+    @Override
+    public void run() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (!Thread.currentThread().isInterrupted()) {
+            if (random.nextInt(100) < settings.pollPercent()) {
+                eTag = api.getAvailability(eTag);
+            } else if (bookingId == null) {
+                LocalDate startDate = randomStartDate(random);
+                bookingId = api.book("POST /booking", startDate, startDate.plusDays(random.nextInt(3)), nextEmail());
+            } else if (random.nextBoolean()) {
+                LocalDate startDate = randomStartDate(random);
+                api.update(bookingId, startDate, startDate.plusDays(random.nextInt(3)));
+            } else {
+                api.cancel(bookingId);
+                bookingId = null;
+            }
+            pause();
+        }
+    }
+
+    // booking can start tomorrow at the earliest and must be less than a month away
+    static LocalDate randomStartDate(ThreadLocalRandom random) {
+        return LocalDate.now().plusDays(1 + random.nextInt(26));
+    }
+
+    private String nextEmail() {
+        return "load-%d-%d@email.com".formatted(id, ++bookings);
+    }
+
+    private void pause() {
+        if (settings.thinkMillis() == 0) {
+            return;
+        }
+        try {
+            Thread.sleep(settings.thinkMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
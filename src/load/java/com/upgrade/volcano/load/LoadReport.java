@@ -0,0 +1,37 @@
+package com.upgrade.volcano.load;
+
+import java.util.Map;
+
+public record LoadReport(
+        int clients,
+        String mode,
+        double durationSeconds,
+        // memory and threads of the whole jvm, clients are the same in every mode so difference is from the server
+        int peakPlatformThreads,
+        long heapUsedAfterGcMb,
+        Map<String, EndpointReport> endpoints,
+        BurstReport bursts
+) {
+
+    public record EndpointReport(
+            long count,
+            double throughput,
+            double p50Millis,
+            double p99Millis,
+            double p999Millis,
+            double maxMillis,
+            Map<String, Long> outcomes
+    ) {
+    }
+
+    // every burst must have at most one winner, several winners means dates were booked twice
+    public record BurstReport(long count, long withoutWinner, long withSeveralWinners) {
+    }
+
+    public long internalErrors() {
+        return endpoints.values().stream()
+                .mapToLong(e -> e.outcomes().getOrDefault(BookingApi.INTERNAL_ERROR, 0L)
+                        + e.outcomes().getOrDefault(BookingApi.IO_ERROR, 0L))
+                .sum();
+    }
+}
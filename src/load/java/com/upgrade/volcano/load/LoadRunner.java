@@ -0,0 +1,115 @@
+package com.upgrade.volcano.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.upgrade.volcano.VolcanoApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the application on a random port and drives mixed http traffic against it: availability polling, bursts
+ * of competing bookings on the same dates, updates and cancels. For every client count from load.clients it prints
+ * throughput, latency percentiles and outcomes per endpoint and writes them as json into load.output directory.
+ * With load.modes=platform,virtual every client count is run once with tomcat thread pool and once with virtual
+ * threads, so throughput, threads and memory of both can be compared. Virtual mode needs Java 21.
+ * Exit code is not zero if some dates were booked twice or there were internal errors.
+ */
+public class LoadRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        Path output = Path.of(settings.output());
+        Files.createDirectories(output);
+
+        boolean failed = false;
+        for (int clients : settings.clients()) {
+            for (String mode : settings.modes()) {
+                LoadReport report = run(clients, mode, settings);
+                print(report);
+                write(report, output.resolve("result-clients-%d-%s.json".formatted(clients, mode)));
+                failed |= report.bursts().withSeveralWinners() > 0 || report.internalErrors() > 0;
+            }
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    private static LoadReport run(int clients, String mode, LoadSettings settings) throws InterruptedException {
+        // new application with empty DB for every run
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VolcanoApplication.class)
+                .logStartupInfo(false)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-%d-%s".formatted(clients, mode),
+                        "volcano.threads.virtual=" + LoadSettings.VIRTUAL.equals(mode),
+                        "springfox.documentation.enabled=false",
+                        "logging.level.root=WARN"
+                )
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LatencyRecorder recorder = new LatencyRecorder();
+            BookingApi api = new BookingApi(port, recorder);
+            BookingBurst burst = new BookingBurst(api, settings);
+
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                threads.add(ClientThreads.newThread(new LoadClient(i, api, settings), "load-client-" + i));
+            }
+            threads.add(new Thread(burst, "load-burst"));
+            threads.forEach(Thread::start);
+
+            ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+            TimeUnit.SECONDS.sleep(settings.warmUpSeconds());
+            recorder.reset();
+            burst.reset();
+            threadBean.resetPeakThreadCount();
+            TimeUnit.SECONDS.sleep(settings.durationSeconds());
+            Map<String, LoadReport.EndpointReport> endpoints = recorder.report();
+            LoadReport report = new LoadReport(clients, mode, settings.durationSeconds(),
+                    threadBean.getPeakThreadCount(), heapUsedAfterGcMb(), endpoints, burst.report());
+
+            threads.forEach(Thread::interrupt);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            return report;
+        }
+    }
+
+    // measured under load, all connections and requests in flight are still there
+    private static long heapUsedAfterGcMb() {
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        memoryBean.gc();
+        return memoryBean.getHeapMemoryUsage().getUsed() / (1024 * 1024);
+    }
+
+    private static void print(LoadReport report) {
+        System.out.printf("%n%d clients, %s threads, %d seconds, peak platform threads %d, heap after gc %d MB%n",
+                report.clients(), report.mode(), (int) report.durationSeconds(), report.peakPlatformThreads(),
+                report.heapUsedAfterGcMb());
+        System.out.printf("%-22s %9s %9s %9s %9s %9s %9s  %s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "outcomes");
+        report.endpoints().forEach((endpoint, e) -> System.out.printf(
+                "%-22s %9d %9.1f %9.2f %9.2f %9.2f %9.2f  %s%n",
+                endpoint, e.count(), e.throughput(), e.p50Millis(), e.p99Millis(), e.p999Millis(), e.maxMillis(),
+                e.outcomes()));
+        LoadReport.BurstReport bursts = report.bursts();
+        System.out.printf("bursts: %d, without winner: %d, with several winners: %d%n",
+                bursts.count(), bursts.withoutWinner(), bursts.withSeveralWinners());
+    }
+
+    private static void write(LoadReport report, Path file) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+    }
+}
@@ -0,0 +1,43 @@
+package com.upgrade.volcano.load;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Settings are taken from system properties, the load profile in pom passes them from maven properties.
+ */
+public record LoadSettings(
+        List<Integer> clients,
+        List<String> modes,
+        int durationSeconds,
+        int warmUpSeconds,
+        int pollPercent,
+        int thinkMillis,
+        int burstSize,
+        int burstIntervalMillis,
+        String output
+) {
+
+    // how the application handles requests: tomcat thread pool or virtual thread per request
+    public static final String PLATFORM = "platform";
+    public static final String VIRTUAL = "virtual";
+
+    public static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                Arrays.stream(System.getProperty("load.clients", "128").split(","))
+                        .map(String::trim)
+                        .map(Integer::valueOf)
+                        .toList(),
+                Arrays.stream(System.getProperty("load.modes", PLATFORM).split(","))
+                        .map(String::trim)
+                        .toList(),
+                Integer.getInteger("load.duration", 30),
+                Integer.getInteger("load.warmup", 5),
+                Integer.getInteger("load.poll-percent", 80),
+                Integer.getInteger("load.think-millis", 0),
+                Integer.getInteger("load.burst-size", 128),
+                Integer.getInteger("load.burst-interval-millis", 1000),
+                System.getProperty("load.output", "target/load")
+        );
+    }
+}
@@ -1,9 +1,18 @@
 package com.upgrade.volcano;
 
+import com.upgrade.volcano.batch.BookingBatcher;
+import com.upgrade.volcano.cache.AvailabilityCacheEvictor;
+import com.upgrade.volcano.cluster.JdbcAvailabilityChangeBus;
+import com.upgrade.volcano.controller.BookingController;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import com.upgrade.volcano.service.DateClaimArbiter;
+import com.upgrade.volcano.service.GuestEmailIndex;
+import com.upgrade.volcano.snapshot.StateSnapshotWriter;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Import;
-import springfox.bean.validators.configuration.BeanValidatorPluginsConfiguration;
 import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.spi.DocumentationType;
@@ -12,7 +21,9 @@ import springfox.documentation.spring.web.plugins.Docket;
 @Configuration
 public class Config {
 
+    // with fast-start profile springfox is off and the spec generated at build time is served (StaticApiDocsController)
     @Bean
+    @ConditionalOnProperty(name = "springfox.documentation.enabled", havingValue = "true", matchIfMissing = true)
     public Docket api() {
         return new Docket(DocumentationType.SWAGGER_2)
                 .select()
@@ -21,4 +32,20 @@ public class Config {
                 .build();
     }
 
+    // with spring.main.lazy-initialization these are still created on start: booking path and in memory indexes
+    // would otherwise be built by the first request, background workers would never start at all
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                BookingController.class,
+                BookingService.class,
+                AvailabilityIndex.class,
+                GuestEmailIndex.class,
+                DateClaimArbiter.class,
+                AvailabilityCacheEvictor.class,
+                BookingBatcher.class,
+                JdbcAvailabilityChangeBus.class,
+                StateSnapshotWriter.class
+        );
+    }
 }
@@ -0,0 +1,216 @@
+package com.upgrade.volcano.batch;
+
+import com.upgrade.volcano.exception.BookingForDatesExist;
+import com.upgrade.volcano.exception.BookingForUserExist;
+import com.upgrade.volcano.model.NewBooking;
+import com.upgrade.volcano.service.BookingService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Group commit of bookings. Requests which come within the window are collected and saved by one thread in one
+ * transaction with batched inserts, so a burst of bookings makes a few commits instead of one per request.
+ * Conflicts inside the batch are resolved in memory, the first request wins a day and an email, others get their
+ * own error without touching the DB. Every caller waits for its own booking id or error, at most for the timeout
+ * while its booking is queued: it holds claims of its days while waiting. Once the flusher takes a booking into a
+ * transaction the caller waits for the outcome, so a saved booking is never reported as failed. Whatever is not
+ * answered when the batcher stops (close or unexpected error of the flusher) is failed, nobody waits for a thread
+ * which is gone.
+ */
+@Component
+@ConditionalOnProperty(name = "volcano.booking.batch.enabled", havingValue = "true")
+public class BookingBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingBatcher.class);
+
+    private final BookingService bookingService;
+    private final long windowNanos;
+    private final int maxSize;
+    private final Duration timeout;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    // set before the flusher fails what is left in the queue, request which sees it after adding itself fails itself
+    private volatile boolean stopped;
+
+    public BookingBatcher(BookingService bookingService,
+                          @Value("${volcano.booking.batch.window:2ms}") Duration window,
+                          @Value("${volcano.booking.batch.max-size:256}") int maxSize,
+                          @Value("${volcano.booking.batch.timeout:10s}") Duration timeout) {
+        this.bookingService = bookingService;
+        this.windowNanos = window.toNanos();
+        this.maxSize = maxSize;
+        this.timeout = timeout;
+        this.flusher = new Thread(this::run, "booking-batcher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public UUID book(int campsiteId, LocalDate startDate, LocalDate endDate, String email, String name) {
+        if (stopped) {
+            throw stoppedException();
+        }
+        Pending pending = new Pending(NewBooking.of(campsiteId, startDate, endDate, email, name),
+                new CompletableFuture<>(), new AtomicBoolean());
+        queue.add(pending);
+        if (stopped && queue.remove(pending)) {
+            // flusher is stopped between the check and the add, it may have failed the queue before we got into it
+            throw stoppedException();
+        }
+        boolean interrupted = false;
+        try {
+            try {
+                return pending.result().get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (pending.take()) {
+                    throw new IllegalStateException("Booking is not saved by batcher in %s".formatted(timeout));
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+                if (pending.take()) {
+                    throw new IllegalStateException("Interrupted while waiting for booking batcher", e);
+                }
+            }
+            // flusher took it first, it is in the transaction or answered already: the outcome is the answer
+            while (true) {
+                try {
+                    return pending.result().get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            // caller gets the same exception as it would get from BookingService.book
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        try {
+            // interrupt can be swallowed by the DB driver during flush, so the flag of close is checked too
+            while (!stopped && !Thread.currentThread().isInterrupted()) {
+                batch = new ArrayList<>();
+                batch.add(queue.take());
+                // window starts with the first request, so an idle batcher doesn't wait for anything
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxSize) {
+                    Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // interrupted while collecting or flushing, or flush threw an Error: the batch in hand and everything
+            // queued are failed, already answered requests are not changed by it
+            stopped = true;
+            queue.drainTo(batch);
+            batch.forEach(p -> p.result().completeExceptionally(stoppedException()));
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        // callers which gave up waiting don't get a booking behind their back, the others wait for this flush
+        batch.removeIf(p -> !p.take());
+        List<Pending> winners = resolveConflicts(batch);
+        if (winners.isEmpty()) {
+            return;
+        }
+        try {
+            bookingService.bookAll(winners.stream().map(Pending::booking).collect(Collectors.toList()));
+            winners.forEach(p -> p.result().complete(p.booking().bookingId()));
+        } catch (DataIntegrityViolationException e) {
+            // somebody in the batch conflicts with what is in DB already, whole batch is rolled back. every booking
+            // is repeated in its own transaction, so only the conflicting ones fail and each gets its own error
+            log.debug("Batch of {} bookings is rejected by DB, booking one by one: {}", winners.size(), e.getMessage());
+            winners.forEach(this::bookAlone);
+        } catch (RuntimeException e) {
+            winners.forEach(p -> p.result().completeExceptionally(e));
+        }
+    }
+
+    // in order of arrival, days are per campsite
+    private static List<Pending> resolveConflicts(List<Pending> batch) {
+        List<Pending> winners = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+        Map<Integer, Set<LocalDate>> days = new HashMap<>();
+        for (Pending p : batch) {
+            NewBooking b = p.booking();
+            Set<LocalDate> taken = days.computeIfAbsent(b.campsiteId(), id -> new HashSet<>());
+            List<LocalDate> conflicts = b.startDate().datesUntil(b.endDate().plusDays(1))
+                    .filter(taken::contains)
+                    .collect(Collectors.toList());
+            if (!conflicts.isEmpty()) {
+                p.result().completeExceptionally(new BookingForDatesExist(conflicts));
+            } else if (emails.contains(b.email())) {
+                p.result().completeExceptionally(new BookingForUserExist(b.email()));
+            } else {
+                emails.add(b.email());
+                b.startDate().datesUntil(b.endDate().plusDays(1)).forEach(taken::add);
+                winners.add(p);
+            }
+        }
+        return winners;
+    }
+
+    private void bookAlone(Pending p) {
+        NewBooking b = p.booking();
+        try {
+            p.result().complete(bookingService.book(b.campsiteId(), b.startDate(), b.endDate(), b.email(), b.name()));
+        } catch (RuntimeException e) {
+            p.result().completeExceptionally(e);
+        }
+    }
+
+    private static IllegalStateException stoppedException() {
+        return new IllegalStateException("Booking batcher is stopped");
+    }
+
+    @PreDestroy
+    public void close() {
+        stopped = true;
+        flusher.interrupt();
+    }
+
+    // taken once, either by the flusher into a batch or by its caller which gives up waiting
+    private record Pending(NewBooking booking, CompletableFuture<UUID> result, AtomicBoolean taken) {
+
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+}
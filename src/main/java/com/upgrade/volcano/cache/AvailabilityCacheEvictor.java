@@ -0,0 +1,57 @@
+package com.upgrade.volcano.cache;
+
+import com.upgrade.volcano.service.AvailabilityChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Evicts only those cached availability windows of the changed campsite which overlap with changed days. Windows
+ * which are not affected by the write stay in the cache, so one booking doesn't send all clients to the DB at once.
+ */
+@Component
+public class AvailabilityCacheEvictor {
+
+    public static final String AVAILABILITY_CACHE = "availability";
+
+    private final CacheManager cacheManager;
+    // caffeine counts only evictions by size and expiration, windows dropped by writes are counted here
+    private final Counter evicted;
+
+    public AvailabilityCacheEvictor(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.evicted = meterRegistry.counter("volcano.availability.cache.evicted");
+    }
+
+    @EventListener
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        Cache cache = cacheManager.getCache(AVAILABILITY_CACHE);
+        if (cache == null) {
+            return;
+        }
+        Map<?, ?> entries;
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeineCache) {
+            entries = caffeineCache.asMap();
+        } else if (cache.getNativeCache() instanceof Map<?, ?> map) {
+            entries = map;
+        } else {
+            // we don't know how to look into this cache, so we can only drop everything
+            cache.clear();
+            return;
+        }
+
+        // collecting keys first, so we don't change the map while iterating it
+        List<?> affectedKeys = entries.keySet().stream()
+                .filter(key -> !(key instanceof AvailabilityKey k) || event.overlaps(k.campsiteId(), k.window()))
+                .collect(Collectors.toList());
+        affectedKeys.forEach(cache::evict);
+        evicted.increment(affectedKeys.size());
+    }
+}
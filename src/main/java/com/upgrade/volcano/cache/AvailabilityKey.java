@@ -0,0 +1,9 @@
+package com.upgrade.volcano.cache;
+
+import com.upgrade.volcano.model.DateRange;
+
+/**
+ * Key of the availability cache, the same window of different campsites is cached separately.
+ */
+public record AvailabilityKey(int campsiteId, DateRange window) {
+}
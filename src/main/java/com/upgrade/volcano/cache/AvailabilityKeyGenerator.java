@@ -0,0 +1,26 @@
+package com.upgrade.volcano.cache;
+
+import com.upgrade.volcano.model.DateRange;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+
+/**
+ * Turns (campsiteId, startDate, endDate) request parameters into AvailabilityKey. Default window (no dates at all) is
+ * resolved to real dates first, so it shares cache entry with the same explicit request and it is evicted as any other
+ * window.
+ */
+public class AvailabilityKeyGenerator implements KeyGenerator {
+
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        int campsiteId = (Integer) params[0];
+        LocalDate startDate = (LocalDate) params[1];
+        LocalDate endDate = (LocalDate) params[2];
+        if (startDate == null && endDate == null) {
+            return new AvailabilityKey(campsiteId, DateRange.defaultWindow());
+        }
+        return new AvailabilityKey(campsiteId, new DateRange(startDate, endDate));
+    }
+}
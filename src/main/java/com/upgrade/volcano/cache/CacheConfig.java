@@ -0,0 +1,29 @@
+package com.upgrade.volcano.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(@Value("${volcano.cache.availability.maximum-size:1000}") long maximumSize) {
+        // passing cache names makes manager static, availability is the only cache we have
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(AvailabilityCacheEvictor.AVAILABILITY_CACHE);
+        // everything cached is computed relative to "today", so nothing should survive the day
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExpireAtMidnight())
+                .recordStats());
+        return cacheManager;
+    }
+
+    @Bean
+    public AvailabilityKeyGenerator availabilityKeyGenerator() {
+        return new AvailabilityKeyGenerator();
+    }
+}
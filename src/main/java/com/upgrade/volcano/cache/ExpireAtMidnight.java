@@ -0,0 +1,34 @@
+package com.upgrade.volcano.cache;
+
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Every entry lives until the next local midnight. After that default window moves and windows starting yesterday
+ * are not valid requests anymore.
+ */
+public class ExpireAtMidnight implements Expiry<Object, Object> {
+
+    @Override
+    public long expireAfterCreate(Object key, Object value, long currentTime) {
+        return nanosUntilMidnight(LocalDateTime.now());
+    }
+
+    @Override
+    public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    @Override
+    public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+        return currentDuration;
+    }
+
+    static long nanosUntilMidnight(LocalDateTime now) {
+        LocalDateTime midnight = LocalDate.from(now).plusDays(1).atStartOfDay();
+        return Duration.between(now, midnight).toNanos();
+    }
+}
@@ -0,0 +1,13 @@
+package com.upgrade.volcano.cluster;
+
+import com.upgrade.volcano.model.DateRange;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Change made by another instance as it came from the bus. Lag is time from the change being sent until it was
+ * received.
+ */
+public record AvailabilityChange(long version, int campsiteId, List<DateRange> ranges, Duration lag) {
+}
@@ -0,0 +1,12 @@
+package com.upgrade.volcano.cluster;
+
+import com.upgrade.volcano.service.AvailabilityChangedEvent;
+
+/**
+ * Sends availability changes of this instance to other instances of the cluster and hands changes of other instances
+ * to {@link ClusterInvalidation}. Every change sent by the bus gets a version, versions of one bus only grow.
+ */
+public interface AvailabilityChangeBus {
+
+    void publish(AvailabilityChangedEvent event);
+}
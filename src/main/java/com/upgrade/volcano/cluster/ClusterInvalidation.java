@@ -0,0 +1,70 @@
+package com.upgrade.volcano.cluster;
+
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.service.AvailabilityChangedEvent;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps availability of this instance in line with writes made by other instances on the same DB. Local changes are
+ * sent to the bus, changes of other instances refresh only their days in the index and then go out as a usual
+ * {@link AvailabilityChangedEvent}, so the cache evicts only overlapping windows and stream subscribers get them too.
+ * Without a bus (volcano.cluster.bus=none) it does nothing.
+ */
+@Component
+public class ClusterInvalidation {
+
+    public static final String LAG = "volcano.cluster.invalidation.lag";
+    public static final String VERSION = "volcano.cluster.invalidation.version";
+
+    private final ObjectProvider<AvailabilityChangeBus> bus;
+    private final AvailabilityIndex availabilityIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Timer lag;
+    // last version of a peer change which is applied here
+    private final AtomicLong appliedVersion = new AtomicLong();
+
+    public ClusterInvalidation(ObjectProvider<AvailabilityChangeBus> bus, AvailabilityIndex availabilityIndex,
+                               ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.bus = bus;
+        this.availabilityIndex = availabilityIndex;
+        this.eventPublisher = eventPublisher;
+        this.lag = Timer.builder(LAG)
+                .description("Time from a write on another instance until its days are evicted here")
+                .register(meterRegistry);
+        meterRegistry.gauge(VERSION, appliedVersion);
+    }
+
+    @EventListener
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        // peer changes came from the bus, sending them back would make instances echo each other forever
+        if (!event.fromPeer()) {
+            bus.ifAvailable(b -> b.publish(event));
+        }
+    }
+
+    // changes of one campsite are applied together, index is read from the DB once for all their days
+    public void apply(int campsiteId, List<AvailabilityChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<DateRange> ranges = changes.stream()
+                .flatMap(c -> c.ranges().stream())
+                .collect(Collectors.toList());
+        availabilityIndex.refresh(campsiteId, ranges);
+        eventPublisher.publishEvent(new AvailabilityChangedEvent(campsiteId, ranges, true));
+        changes.forEach(c -> {
+            lag.record(c.lag());
+            appliedVersion.accumulateAndGet(c.version(), Math::max);
+        });
+    }
+}
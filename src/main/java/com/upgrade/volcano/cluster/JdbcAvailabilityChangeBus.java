@@ -0,0 +1,150 @@
+package com.upgrade.volcano.cluster;
+
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.service.AvailabilityChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Changes are rows of availability_change table, so all instances on the same DB see them. Every instance inserts
+ * ranges of its own committed writes and polls rows of others, row id is the version of the change.
+ * Insert and poll are done by one background thread, request threads don't wait for them. Changes of an instance
+ * which dies between its commit and the insert are not seen by others until cache entries expire.
+ */
+@Component
+@ConditionalOnProperty(name = "volcano.cluster.bus", havingValue = "jdbc")
+public class JdbcAvailabilityChangeBus implements AvailabilityChangeBus {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcAvailabilityChangeBus.class);
+
+    private static final Duration CLEANUP_INTERVAL = Duration.ofMinutes(1);
+    // ids are taken on insert and become visible on commit, so a smaller id can show up after a bigger one.
+    // a gap which stays longer than this is an id which will never show up (insert failed)
+    private static final Duration GAP_TIMEOUT = Duration.ofSeconds(5);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterInvalidation clusterInvalidation;
+    private final String node;
+    private final Duration retention;
+    private final ScheduledExecutorService worker;
+
+    // every row up to it is seen, above it only those in seenAbove
+    private long seenUpTo;
+    private final TreeSet<Long> seenAbove = new TreeSet<>();
+    private long lastCleanup = System.nanoTime();
+
+    public JdbcAvailabilityChangeBus(JdbcTemplate jdbcTemplate, ClusterInvalidation clusterInvalidation,
+                                     @Value("${volcano.cluster.node:}") String node,
+                                     @Value("${volcano.cluster.poll-interval:200ms}") Duration pollInterval,
+                                     @Value("${volcano.cluster.retention:1h}") Duration retention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterInvalidation = clusterInvalidation;
+        this.node = StringUtils.hasText(node) ? node : UUID.randomUUID().toString();
+        this.retention = retention;
+        // everything before start is in the index already, it was loaded from the DB
+        Long last = jdbcTemplate.queryForObject("select max(id) from availability_change", Long.class);
+        this.seenUpTo = last != null ? last : 0;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "availability-change-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Availability changes are exchanged through DB as node {}", this.node);
+    }
+
+    @Override
+    public void publish(AvailabilityChangedEvent event) {
+        worker.execute(() -> {
+            try {
+                jdbcTemplate.batchUpdate("insert into availability_change(node, campsite_id, start_date, end_date) values (?, ?, ?, ?)",
+                        event.ranges(), event.ranges().size(), (ps, range) -> {
+                            ps.setString(1, node);
+                            ps.setInt(2, event.campsiteId());
+                            ps.setObject(3, range.startDate());
+                            ps.setObject(4, range.endDate());
+                        });
+            } catch (RuntimeException e) {
+                log.warn("Can't send availability change of campsite {} to other instances: {}", event.campsiteId(), e.getMessage());
+            }
+        });
+    }
+
+    private void poll() {
+        try {
+            // lag is measured by the DB clock, so clocks of instances don't have to agree
+            List<Row> rows = jdbcTemplate.query("select id, node, campsite_id, start_date, end_date, changed_at, localtimestamp as now "
+                            + "from availability_change where id > ? order by id",
+                    (rs, i) -> new Row(rs.getLong("id"), rs.getString("node"), rs.getInt("campsite_id"),
+                            new DateRange(rs.getObject("start_date", LocalDate.class), rs.getObject("end_date", LocalDate.class)),
+                            Duration.between(rs.getObject("changed_at", LocalDateTime.class), rs.getObject("now", LocalDateTime.class))),
+                    seenUpTo);
+            Map<Integer, List<AvailabilityChange>> changes = new LinkedHashMap<>();
+            for (Row row : rows) {
+                if (!seenAbove.contains(row.id()) && !node.equals(row.node())) {
+                    changes.computeIfAbsent(row.campsiteId(), id -> new ArrayList<>())
+                            .add(new AvailabilityChange(row.id(), row.campsiteId(), List.of(row.range()), row.lag()));
+                }
+            }
+            changes.forEach(clusterInvalidation::apply);
+            // rows are marked as seen only when they are applied, if something failed next poll reads them again
+            rows.forEach(row -> {
+                seenAbove.add(row.id());
+                skipOldGaps(row.id(), row.lag());
+            });
+            advance();
+            cleanup();
+        } catch (RuntimeException e) {
+            log.warn("Can't read availability changes of other instances: {}", e.getMessage());
+        }
+    }
+
+    // missing ids below a row which is old enough are given up
+    private void skipOldGaps(long id, Duration lag) {
+        if (lag.compareTo(GAP_TIMEOUT) > 0 && id - 1 > seenUpTo) {
+            seenUpTo = id - 1;
+            seenAbove.headSet(id, false).clear();
+        }
+    }
+
+    private void advance() {
+        while (!seenAbove.isEmpty() && seenAbove.first() == seenUpTo + 1) {
+            seenUpTo = seenAbove.pollFirst();
+        }
+    }
+
+    private void cleanup() {
+        if (System.nanoTime() - lastCleanup < CLEANUP_INTERVAL.toNanos()) {
+            return;
+        }
+        lastCleanup = System.nanoTime();
+        jdbcTemplate.update("delete from availability_change where changed_at < ?", LocalDateTime.now().minus(retention));
+    }
+
+    @PreDestroy
+    public void close() {
+        worker.shutdownNow();
+    }
+
+    private record Row(long id, String node, int campsiteId, DateRange range, Duration lag) {
+    }
+}
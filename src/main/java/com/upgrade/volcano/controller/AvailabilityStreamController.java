@@ -0,0 +1,34 @@
+package com.upgrade.volcano.controller;
+
+import com.upgrade.volcano.service.BookingService;
+import com.upgrade.volcano.stream.AvailabilityStream;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+
+// clients subscribe first and then get availability, after that they only apply changes from the stream
+@RestController
+@RequestMapping("booking")
+public class AvailabilityStreamController {
+
+    private final AvailabilityStream availabilityStream;
+    private final BookingService bookingService;
+
+    public AvailabilityStreamController(AvailabilityStream availabilityStream, BookingService bookingService) {
+        this.availabilityStream = availabilityStream;
+        this.bookingService = bookingService;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> stream(@RequestParam(required = false) Integer campsiteId) throws IOException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(availabilityStream.subscribe(bookingService.resolveCampsite(campsiteId)));
+    }
+}
@@ -1,27 +1,32 @@
 package com.upgrade.volcano.controller;
 
+import com.upgrade.volcano.batch.BookingBatcher;
+import com.upgrade.volcano.dto.AvailabilityBatchRequest;
 import com.upgrade.volcano.dto.AvailabilityResponse;
+import com.upgrade.volcano.dto.AvailabilitySnapshot;
 import com.upgrade.volcano.dto.BookingRequest;
 import com.upgrade.volcano.dto.BookingResponse;
 import com.upgrade.volcano.dto.UpdateBookingRequest;
-import com.upgrade.volcano.exception.BookingForDatesExist;
-import com.upgrade.volcano.exception.ClientValidationException;
-import com.upgrade.volcano.model.Booking;
+import com.upgrade.volcano.idempotency.IdempotencyStore;
+import com.upgrade.volcano.model.DateRange;
 import com.upgrade.volcano.service.BookingService;
-import org.hibernate.exception.ConstraintViolationException;
+import com.upgrade.volcano.service.DateClaimArbiter;
+import com.upgrade.volcano.service.DateClaimArbiter.DateClaim;
+import com.upgrade.volcano.validation.BookingRequestValidator;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import springfox.documentation.annotations.ApiIgnore;
 
 import javax.validation.Valid;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -31,160 +36,133 @@ import java.util.stream.Collectors;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final DateClaimArbiter dateClaimArbiter;
+    private final IdempotencyStore idempotencyStore;
+    // null when group commit is off, then every booking is its own transaction
+    private final BookingBatcher bookingBatcher;
 
     private static final Logger log = LoggerFactory.getLogger(BookingController.class);
-    public static final String UNIQUE_BOOKING_DATE_CONSTRAINT_NAME = "unique_booking_date";
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, DateClaimArbiter dateClaimArbiter,
+                             IdempotencyStore idempotencyStore, ObjectProvider<BookingBatcher> bookingBatcher) {
         this.bookingService = bookingService;
+        this.dateClaimArbiter = dateClaimArbiter;
+        this.idempotencyStore = idempotencyStore;
+        this.bookingBatcher = bookingBatcher.getIfAvailable();
     }
 
-    @GetMapping
-    @Cacheable("availability")
-    public ResponseEntity<AvailabilityResponse> getAvailability(
+    // body is json of AvailabilityResponse, it is cached already encoded and written as is
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(@ApiResponse(code = 200, message = "OK", response = AvailabilityResponse.class))
+    public ResponseEntity<byte[]> getAvailability(
+            @RequestParam(required = false) Integer campsiteId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @ApiIgnore WebRequest request
     ) {
-        if (startDate == null && endDate == null) {
-            startDate = LocalDate.now();
-            endDate = startDate.plusMonths(1);
+        int campsite = bookingService.resolveCampsite(campsiteId);
+        DateRange window = BookingRequestValidator.availabilityWindow(startDate, endDate);
+        startDate = window.startDate();
+        endDate = window.endDate();
+
+        // if client sent If-None-Match with current version of the window it gets 304 and we don't build anything
+        long version = bookingService.getAvailabilityVersion(campsite, startDate, endDate);
+        if (request.checkNotModified(eTag(campsite, startDate, endDate, version))) {
+            return null;
         }
 
-        if (oneDayIsNullAndOtherIsNot(startDate, endDate)) {
-            throw new ClientValidationException("Start date and end date must be set together");
-        }
-
-        if (startDate.isAfter(endDate)) {
-            throw new ClientValidationException("Start date is later than end date");
-        }
-
-        if (startDate.isBefore(LocalDate.now())) {
-            throw new ClientValidationException("Start date is in the past");
+        AvailabilitySnapshot availability = bookingService.getAvailability(campsite, startDate, endDate);
+        if (availability.version() < version) {
+            // cached before a write which is already in the index, it would be served until the next write
+            availability = bookingService.rebuildAvailability(campsite, startDate, endDate);
         }
+        return ResponseEntity.ok()
+                .eTag(eTag(campsite, startDate, endDate, availability.version()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(availability.json());
+    }
 
-        List<Booking> bookedDates = bookingService.getBookedDates(startDate, endDate);
-        return ResponseEntity.ok(new AvailabilityResponse(bookedDates, startDate, endDate));
+    // one request for all windows of a page. response has the same format as GET /booking, days of overlapping
+    // windows are there once
+    @PostMapping(path = "/availability/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @ApiResponses(@ApiResponse(code = 200, message = "OK", response = AvailabilityResponse.class))
+    public ResponseEntity<byte[]> getBatchAvailability(@RequestBody @Valid AvailabilityBatchRequest r) {
+        int campsite = bookingService.resolveCampsite(r.campsiteId());
+        List<DateRange> windows = r.windows().stream()
+                .map(w -> BookingRequestValidator.availabilityWindow(w.startDate(), w.endDate()))
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(bookingService.getAvailability(campsite, windows).json());
     }
 
-    private boolean oneDayIsNullAndOtherIsNot(@DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam(required = false) LocalDate startDate, @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) @RequestParam(required = false) LocalDate endDate) {
-        return (startDate == null && endDate != null) || (startDate != null && endDate == null);
+    // strong etag: campsite, window itself and the last version of bookings which changed any day of the window.
+    // version is counted by this instance, so its epoch goes first: behind a load balancer the same version of
+    // another node is different data
+    private String eTag(int campsiteId, LocalDate startDate, LocalDate endDate, long version) {
+        return "\"%s:%d:%s:%s:%d\"".formatted(bookingService.getAvailabilityEpoch(), campsiteId, startDate, endDate, version);
     }
 
     @PostMapping
-    @CacheEvict(value = "availability", allEntries = true)
-    public ResponseEntity<BookingResponse> book(@RequestBody @Valid BookingRequest r) {
-        validateBookingRequest(r);
-
-        var bookingId = saveBookingWithErrorHandling(r);
+    public ResponseEntity<BookingResponse> book(
+            @RequestBody @Valid BookingRequest r,
+            @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey
+    ) {
+        BookingRequestValidator.validateBookingRequest(r);
+        BookingRequestValidator.validateIdempotencyKey(idempotencyKey);
+        int campsite = bookingService.resolveCampsite(r.getCampsiteId());
+
+        // retry with the same key gets booking of the first attempt, it doesn't go to claims and transaction again
+        var bookingId = idempotencyKey == null
+                ? saveBookingWithErrorHandling(campsite, r)
+                : idempotencyStore.book(idempotencyKey, fingerprint(campsite, r), () -> saveBookingWithErrorHandling(campsite, r));
         log.info("Booking for {} and dates {} - {} was created successfully", r.getEmail(), r.getStartDate(), r.getEndDate());
 
         return ResponseEntity.ok(new BookingResponse(bookingId));
     }
 
+    // everything client asked for, the same key with another request is a client bug
+    private String fingerprint(int campsiteId, BookingRequest r) {
+        return "%d:%s:%s:%s:%s".formatted(campsiteId, r.getStartDate(), r.getEndDate(), r.getEmail(), r.getName());
+    }
+
     // right now booking request and update request are the same, so I will use it, but if they will differ in the
     // future it will be easy change
     @PutMapping("/{id}")
-    @CacheEvict(value = "availability", allEntries = true)
     public ResponseEntity<Void> updateBooking(@PathVariable String id, @RequestBody @Valid UpdateBookingRequest r) {
-        UUID bookingId = fromString(id);
-        validateUpdateRequest(r);
-
-        bookingService.update(bookingId, r.getStartDate(), r.getEndDate(), r.getEmail(), r.getName());
+        UUID bookingId = BookingRequestValidator.bookingId(id);
+        BookingRequestValidator.validateUpdateRequest(r);
+
+        // only new dates are claimed, guest changes don't compete for days. booking stays on its campsite,
+        // booking unknown to the index has no days ahead to compete with, unique index checks it
+        Integer campsite = r.getStartDate() == null ? null : bookingService.getCampsite(bookingId);
+        try (DateClaim claim = campsite == null ? null
+                : dateClaimArbiter.claim(campsite, bookingId, r.getStartDate(), r.getEndDate())) {
+            bookingService.update(bookingId, r.getStartDate(), r.getEndDate(), r.getEmail(), r.getName());
+        }
 
         return ResponseEntity.ok().build();
     }
 
     @DeleteMapping("/{id}")
-    @CacheEvict(value = "availability", allEntries = true)
     public ResponseEntity<Void> cancelBooking(@PathVariable String id) {
-        UUID bookingUUID = fromString(id);
+        UUID bookingUUID = BookingRequestValidator.bookingId(id);
 
         bookingService.cancel(bookingUUID);
         return ResponseEntity.ok().build();
     }
 
-    // this is our additional protection against multithreading booking requests
-    private UUID saveBookingWithErrorHandling(BookingRequest r) {
-        try {
-            return bookingService.book(r.getStartDate(), r.getEndDate(), r.getEmail(), r.getName());
-        } catch (DataIntegrityViolationException e) {
-            if (isSameDateBookingException(e)) {
-                throw new BookingForDatesExist(r.getStartDate().datesUntil(r.getEndDate()).collect(Collectors.toList()));
-            } else {
-                // error is unexpected we throw as is
-                throw e;
-            }
-        }
-    }
-
-    private boolean isSameDateBookingException(DataIntegrityViolationException e) {
-        Throwable cause = e.getCause();
-        if (cause == null) {
-            return false;
-        }
-
-        if (!(cause instanceof ConstraintViolationException constraintException)) {
-            return false;
-        }
-
-        String constraintName = constraintException.getConstraintName();
-        if (!StringUtils.hasText(constraintName)) {
-            return false;
-        }
-
-        return constraintName.toLowerCase().contains(UNIQUE_BOOKING_DATE_CONSTRAINT_NAME);
-    }
-
-    private void validateBookingRequest(BookingRequest r) {
-        validateEndDateLaterStartDate(r.getStartDate(), r.getEndDate());
-        bookingIsMoreThanThreeDays(r.getStartDate(), r.getEndDate());
-        bookingIsMoreThan1MonthAway(r.getStartDate());
-    }
-
-    private void validateUpdateRequest(UpdateBookingRequest r) {
-        if (r.getStartDate() != null || r.getEndDate() != null) {
-            // if user wants to update date two dates must be provided
-            validateTwoDatesProvided(r.getStartDate(), r.getEndDate());
-            validateEndDateLaterStartDate(r.getStartDate(), r.getEndDate());
-            bookingIsMoreThanThreeDays(r.getStartDate(), r.getEndDate());
-            bookingIsMoreThan1MonthAway(r.getStartDate());
-        }
-    }
-
-    private UUID fromString(String id) {
-        try {
-            return UUID.fromString(id);
-        } catch (Exception e) {
-            throw new ClientValidationException("Can't convert %s to uuid: %s".formatted(id, e.getMessage()));
+    // guest who already has a booking and concurrent requests for the same days lose here before transaction,
+    // days are claimed in memory without going to the DB. unique index is our additional protection against
+    // multithreading booking requests, BookingService turns its violation into BookingForDatesExist
+    private UUID saveBookingWithErrorHandling(int campsiteId, BookingRequest r) {
+        bookingService.checkGuestHasNoBooking(r.getEmail());
+        try (DateClaim claim = dateClaimArbiter.claim(campsiteId, null, r.getStartDate(), r.getEndDate())) {
+            return bookingBatcher != null
+                    ? bookingBatcher.book(campsiteId, r.getStartDate(), r.getEndDate(), r.getEmail(), r.getName())
+                    : bookingService.book(campsiteId, r.getStartDate(), r.getEndDate(), r.getEmail(), r.getName());
         }
     }
-
-    private void validateEndDateLaterStartDate(LocalDate startDate, LocalDate endDate) {
-        if (startDate.isAfter(endDate)) {
-            throw new ClientValidationException("Start date is later than end date");
-        }
-    }
-
-    public void bookingIsMoreThanThreeDays(LocalDate startDate, LocalDate endDate) {
-        if (ChronoUnit.DAYS.between(startDate, endDate) > 3) {
-            throw new ClientValidationException("Booking for more than 3 days are not allowed");
-        }
-    }
-
-    public void bookingIsMoreThan1MonthAway(LocalDate startDate) {
-        if (ChronoUnit.MONTHS.between(LocalDate.now(), startDate) > 0) {
-            throw new ClientValidationException("No bookings more than 1 month in advance");
-        }
-    }
-
-    private void validateTwoDatesProvided(LocalDate startDate, LocalDate endDate) {
-        if (startDate == null) {
-            throw new ClientValidationException("Start date must be provided for booking date update");
-        }
-        if (endDate == null) {
-            throw new ClientValidationException("End date must be provided for booking date update");
-        }
-    }
-
-
 }
@@ -0,0 +1,32 @@
+package com.upgrade.volcano.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.upgrade.volcano.cache.AvailabilityCacheEvictor;
+import com.upgrade.volcano.dto.CacheStatsResponse;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+// numbers to size availability cache from real traffic
+@RestController
+@RequestMapping("cache")
+public class CacheStatsController {
+
+    private final CacheManager cacheManager;
+
+    public CacheStatsController(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @GetMapping("/availability/stats")
+    public ResponseEntity<CacheStatsResponse> getAvailabilityStats() {
+        Cache<?, ?> cache = (Cache<?, ?>) cacheManager.getCache(AvailabilityCacheEvictor.AVAILABILITY_CACHE).getNativeCache();
+        CacheStats stats = cache.stats();
+        return ResponseEntity.ok(new CacheStatsResponse(
+                cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount()
+        ));
+    }
+}
@@ -4,8 +4,11 @@ import com.upgrade.volcano.exception.ErrorCode;
 import com.upgrade.volcano.dto.ErrorResponse;
 import com.upgrade.volcano.exception.BaseException;
 import com.upgrade.volcano.exception.ClientValidationException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -15,15 +18,39 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @ControllerAdvice
 public class ControllerErrorHandler {
     private static final Logger log = LoggerFactory.getLogger("default");
 
+    // client errors are expected, only internal errors are logged every time and with stack trace
+    private final RejectionLog rejectionLog;
+    // every error response is counted by its code, internal errors too
+    private final Map<ErrorCode, Counter> rejections = new EnumMap<>(ErrorCode.class);
+
+    public static final String REJECTIONS = "volcano.rejections";
+
+    public ControllerErrorHandler(@Value("${volcano.log.rejection-interval:1s}") Duration rejectionLogInterval,
+                                  MeterRegistry meterRegistry) {
+        this.rejectionLog = new RejectionLog(log, rejectionLogInterval);
+        for (ErrorCode code : ErrorCode.values()) {
+            rejections.put(code, meterRegistry.counter(REJECTIONS, "code", code.name()));
+        }
+    }
+
+    private void rejected(ErrorCode code, String message) {
+        rejections.get(code).increment();
+        rejectionLog.rejected(code, message);
+    }
+
     @ResponseBody
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleServerError(Exception e) {
+        rejections.get(ErrorCode.INTERNAL_ERROR).increment();
         log.error("Got internal error", e);
         return ResponseEntity
                 .status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -34,7 +61,7 @@ public class ControllerErrorHandler {
     @ExceptionHandler({MissingServletRequestParameterException.class, IllegalArgumentException.class,
             MethodArgumentTypeMismatchException.class})
     public ResponseEntity<ErrorResponse> handleCommonValidationErrors(Exception e) {
-        log.error(e.getMessage());
+        rejected(ErrorCode.MALFORMED_REQUEST_ERROR, e.getMessage());
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
                 .body(new ErrorResponse(e.getMessage(), ErrorCode.MALFORMED_REQUEST_ERROR));
@@ -43,12 +70,12 @@ public class ControllerErrorHandler {
     @ResponseBody
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleMethodArgumentNotValid(MethodArgumentNotValidException ex) {
-        log.error(ex.getMessage());
         String errors = ex.getBindingResult()
                 .getFieldErrors()
                 .stream()
                 .map(e -> e.getField() + ": " + e.getDefaultMessage())
                 .collect(Collectors.joining("; "));
+        rejected(ErrorCode.VALIDATION_ERROR, errors);
 
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
@@ -58,7 +85,7 @@ public class ControllerErrorHandler {
     @ResponseBody
     @ExceptionHandler(ClientValidationException.class)
     public ResponseEntity<ErrorResponse> handleClientValidationException(BaseException e) {
-        log.error(e.getMessage());
+        rejected(e.getCode(), e.getMessage());
         return ResponseEntity
                 .status(HttpStatus.BAD_REQUEST)
                 .body(new ErrorResponse(e.getMessage(), e.getCode()));
@@ -67,11 +94,9 @@ public class ControllerErrorHandler {
     @ResponseBody
     @ExceptionHandler(BaseException.class)
     public ResponseEntity<ErrorResponse> handleBaseException(BaseException e) {
-        log.error(e.getMessage());
+        rejected(e.getCode(), e.getMessage());
         return ResponseEntity
                 .status(HttpStatus.NOT_ACCEPTABLE)
                 .body(new ErrorResponse(e.getMessage(), e.getCode()));
     }
-
-
 }
@@ -0,0 +1,53 @@
+package com.upgrade.volcano.controller;
+
+import com.upgrade.volcano.exception.ErrorCode;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs at most one rejection per error code per interval, the logged line tells how many were skipped before it.
+ * During bursts almost every request is rejected, and writing each of them to the log costs more than rejecting.
+ */
+public final class RejectionLog {
+
+    private final Logger log;
+    private final long intervalNanos;
+    private final AtomicLongArray nextLogAt;
+    private final LongAdder[] skipped;
+
+    public RejectionLog(Logger log, Duration interval) {
+        this.log = log;
+        this.intervalNanos = interval.toNanos();
+        int codes = ErrorCode.values().length;
+        this.nextLogAt = new AtomicLongArray(codes);
+        this.skipped = new LongAdder[codes];
+        long now = System.nanoTime();
+        for (int i = 0; i < codes; i++) {
+            nextLogAt.set(i, now);
+            skipped[i] = new LongAdder();
+        }
+    }
+
+    // returns true if rejection was written to the log
+    public boolean rejected(ErrorCode code, String message) {
+        int i = code.ordinal();
+        long now = System.nanoTime();
+        long next = nextLogAt.get(i);
+        // only one thread wins the right to log in the interval, others just count
+        if (now - next < 0 || !nextLogAt.compareAndSet(i, next, now + intervalNanos)) {
+            skipped[i].increment();
+            return false;
+        }
+
+        long skippedSinceLast = skipped[i].sumThenReset();
+        if (skippedSinceLast == 0) {
+            log.info("Rejected with {}: {}", code, message);
+        } else {
+            log.info("Rejected with {}: {} ({} more were not logged)", code, message, skippedSinceLast);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package com.upgrade.volcano.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Read-only transactions go to the replica while it is not staler than max staleness, everything else to the primary.
+ * Transaction must be known when connection is taken, so it is used behind LazyConnectionDataSourceProxy.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String READ_ONLY = "volcano.datasource.read-only";
+
+    private enum Target {PRIMARY, REPLICA}
+
+    private final ReplicaFeeder replicaFeeder;
+    private final Duration maxStaleness;
+    private final Counter toReplica;
+    private final Counter toPrimary;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaFeeder replicaFeeder, Duration maxStaleness,
+                                      MeterRegistry meterRegistry) {
+        this.replicaFeeder = replicaFeeder;
+        this.maxStaleness = maxStaleness;
+        this.toReplica = meterRegistry.counter(READ_ONLY, "target", "replica");
+        this.toPrimary = meterRegistry.counter(READ_ONLY, "target", "primary");
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replicaFeeder.getDataSource()));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return Target.PRIMARY;
+        }
+        if (replicaFeeder.getStaleness().compareTo(maxStaleness) > 0) {
+            toPrimary.increment();
+            return Target.PRIMARY;
+        }
+        toReplica.increment();
+        return Target.REPLICA;
+    }
+}
@@ -0,0 +1,132 @@
+package com.upgrade.volcano.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for DB replication: replica is another H2 with the same schema, every interval its tables are replaced
+ * by the current content of the primary in one transaction (through H2 linked tables). A real replica would be fed
+ * by the DB itself, the rest of the application sees the same thing: a pool of its own which is a bit behind.
+ */
+@Component
+@ConditionalOnProperty(name = "volcano.datasource.replica.enabled", havingValue = "true")
+public class ReplicaFeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaFeeder.class);
+
+    public static final String STALENESS = "volcano.datasource.replica.staleness";
+
+    // inserted in this order and deleted in reverse, so guest is there before its links
+    private static final List<String> TABLES = List.of("campsite", "booking", "guest", "booking_to_guest");
+
+    private final HikariDataSource replica;
+    private final DataSourceProperties primary;
+    private final Duration interval;
+    private final ScheduledExecutorService worker;
+    // start of the last successful copy, replica has everything committed before it. 0 until the first copy
+    private volatile long syncedAt;
+
+    public ReplicaFeeder(DataSourceProperties primary, MeterRegistry meterRegistry,
+                         @Value("${volcano.datasource.replica.url}") String url,
+                         @Value("${volcano.datasource.replica.username:sa}") String username,
+                         @Value("${volcano.datasource.replica.password:}") String password,
+                         @Value("${volcano.datasource.replica.maximum-pool-size:10}") int maximumPoolSize,
+                         @Value("${volcano.datasource.replica.feed-interval:500ms}") Duration interval) {
+        this.primary = primary;
+        this.interval = interval;
+        this.replica = new HikariDataSource();
+        replica.setJdbcUrl(url);
+        replica.setUsername(username);
+        replica.setPassword(password);
+        replica.setMaximumPoolSize(maximumPoolSize);
+        replica.setPoolName("replica");
+        // hikaricp_* meters with pool=replica, next to pool=primary
+        replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-feeder");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder(STALENESS, this, f -> f.syncedAt == 0 ? Double.NaN : f.getStaleness().toMillis())
+                .baseUnit("milliseconds")
+                .description("Time since the last change of the primary which is surely on the replica")
+                .register(meterRegistry);
+    }
+
+    // primary schema is created by data.sql before the application is ready
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        new ResourceDatabasePopulator(new ClassPathResource("data.sql")).execute(replica);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(replica);
+        for (String table : TABLES) {
+            jdbcTemplate.execute("create linked table if not exists primary_%s('org.h2.Driver', '%s', '%s', '%s', '%s') readonly"
+                    .formatted(table, primary.determineUrl(), primary.determineUsername(), primary.determinePassword(),
+                            table.toUpperCase()));
+        }
+        worker.scheduleWithFixedDelay(this::feedQuietly, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public DataSource getDataSource() {
+        return replica;
+    }
+
+    // as good as infinite until the first copy is done
+    public Duration getStaleness() {
+        long synced = syncedAt;
+        return synced == 0 ? Duration.ofSeconds(Long.MAX_VALUE) : Duration.ofNanos(System.nanoTime() - synced);
+    }
+
+    public void feed() throws SQLException {
+        long started = System.nanoTime();
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            connection.setAutoCommit(false);
+            for (int i = TABLES.size() - 1; i >= 0; i--) {
+                statement.executeUpdate("delete from " + TABLES.get(i));
+            }
+            for (String table : TABLES) {
+                statement.executeUpdate("insert into %s select * from primary_%s".formatted(table, table));
+            }
+            connection.commit();
+        }
+        syncedAt = started;
+    }
+
+    private void feedQuietly() {
+        try {
+            feed();
+        } catch (SQLException | RuntimeException e) {
+            // replica only gets staler, reads go to the primary when it is too stale
+            log.warn("Can't copy primary into replica: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        worker.shutdownNow();
+        replica.close();
+    }
+}
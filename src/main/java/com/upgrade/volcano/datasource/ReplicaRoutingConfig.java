@@ -0,0 +1,45 @@
+package com.upgrade.volcano.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * volcano.datasource.replica.enabled=true replaces spring boot datasource with a routing one: primary pool from
+ * spring.datasource for writes, replica pool (ReplicaFeeder) for read-only transactions, so reads don't wait for
+ * connections of booking transactions. Both pools have their hikaricp meters, tagged by pool name.
+ */
+@Configuration
+@ConditionalOnProperty(name = "volcano.datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    private HikariDataSource primary;
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, ReplicaFeeder replicaFeeder, MeterRegistry meterRegistry,
+                                 @Value("${volcano.datasource.replica.max-staleness:1s}") Duration maxStaleness) {
+        primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        primary.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        // jpa takes connection when transaction begins, before it is marked read-only. proxy takes it on the first
+        // statement, when routing already knows
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicaFeeder, maxStaleness, meterRegistry));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (primary != null) {
+            primary.close();
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.upgrade.volcano.dto;
+
+import com.upgrade.volcano.model.DateRange;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Several availability windows of one page (month views of calendar, weekend widget). Window without dates is the
+ * default one, like GET /booking without parameters. Campsite is the default one if not set.
+ */
+public record AvailabilityBatchRequest(@Positive Integer campsiteId,
+                                       @NotEmpty @Size(max = MAX_WINDOWS) List<@NotNull DateRange> windows) {
+    public static final int MAX_WINDOWS = 12;
+}
@@ -1,7 +1,5 @@
 package com.upgrade.volcano.dto;
 
-import com.upgrade.volcano.model.Booking;
-
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -13,12 +11,12 @@ public class AvailabilityResponse {
      */
     private final Map<LocalDate, Boolean> availability;
 
-    public AvailabilityResponse(List<Booking> bookedDates, LocalDate startDate, LocalDate endDate) {
+    public AvailabilityResponse(List<LocalDate> bookedDates, LocalDate startDate, LocalDate endDate) {
         // populating result
         availability = new HashMap<>();
         startDate.datesUntil(endDate.plusDays(1)).forEach(d -> availability.put(d, true));
 
-        bookedDates.forEach(d -> availability.put(d.getDate(), false));
+        bookedDates.forEach(d -> availability.put(d, false));
     }
 
     public Map<LocalDate, Boolean> getAvailability() {
@@ -0,0 +1,62 @@
+package com.upgrade.volcano.dto;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.SortedSet;
+
+/**
+ * Availability already encoded to json, format is the same as serialized AvailabilityResponse.
+ * It is built once for a window and version of bookings and then written to response as is, so requests don't build
+ * map of boxed values and don't run serialization. Json bytes are shared, nobody should change them.
+ * Version is the version of the window (see AvailabilityIndex.getVersion(startDate, endDate)).
+ */
+public record AvailabilitySnapshot(long version, byte[] json) {
+
+    private static final byte[] PREFIX = "{\"availability\":{".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] AVAILABLE = "\":true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BOOKED = "\":false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SUFFIX = "}}".getBytes(StandardCharsets.US_ASCII);
+    // "2021-09-27":false,
+    private static final int MAX_DAY_LENGTH = 19;
+
+    // booked dates must be sorted, that is how index returns them
+    public static AvailabilitySnapshot of(long version, LocalDate startDate, LocalDate endDate, List<LocalDate> bookedDates) {
+        int days = (int) (endDate.toEpochDay() - startDate.toEpochDay() + 1);
+        return of(version, startDate.datesUntil(endDate.plusDays(1)).iterator(), days, bookedDates);
+    }
+
+    // availability only of given days, they don't have to be continuous
+    public static AvailabilitySnapshot of(long version, SortedSet<LocalDate> days, List<LocalDate> bookedDates) {
+        return of(version, days.iterator(), days.size(), bookedDates);
+    }
+
+    private static AvailabilitySnapshot of(long version, Iterator<LocalDate> days, int dayCount, List<LocalDate> bookedDates) {
+        ByteArrayOutputStream json = new ByteArrayOutputStream(PREFIX.length + SUFFIX.length + dayCount * MAX_DAY_LENGTH);
+        json.writeBytes(PREFIX);
+
+        Iterator<LocalDate> booked = bookedDates.iterator();
+        LocalDate nextBooked = booked.hasNext() ? booked.next() : null;
+        boolean first = true;
+        while (days.hasNext()) {
+            LocalDate d = days.next();
+            if (!first) {
+                json.write(',');
+            }
+            first = false;
+            json.write('"');
+            json.writeBytes(d.toString().getBytes(StandardCharsets.US_ASCII));
+            if (d.equals(nextBooked)) {
+                json.writeBytes(BOOKED);
+                nextBooked = booked.hasNext() ? booked.next() : null;
+            } else {
+                json.writeBytes(AVAILABLE);
+            }
+        }
+
+        json.writeBytes(SUFFIX);
+        return new AvailabilitySnapshot(version, json.toByteArray());
+    }
+}
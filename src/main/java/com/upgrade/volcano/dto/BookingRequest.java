@@ -4,10 +4,14 @@ import javax.validation.constraints.Email;
 import javax.validation.constraints.Future;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
 import java.time.LocalDate;
 
 public class BookingRequest {
 
+    // default campsite if not set
+    @Positive
+    private Integer campsiteId;
     @Future
     @NotNull
     private LocalDate startDate;
@@ -30,6 +34,19 @@ public class BookingRequest {
         this.email = email;
     }
 
+    public BookingRequest(Integer campsiteId, LocalDate startDate, LocalDate endDate, String name, String email) {
+        this(startDate, endDate, name, email);
+        this.campsiteId = campsiteId;
+    }
+
+    public Integer getCampsiteId() {
+        return campsiteId;
+    }
+
+    public void setCampsiteId(Integer campsiteId) {
+        this.campsiteId = campsiteId;
+    }
+
     public LocalDate getStartDate() {
         return startDate;
     }
@@ -0,0 +1,4 @@
+package com.upgrade.volcano.dto;
+
+public record CacheStatsResponse(long size, long hitCount, long missCount, double hitRate, long evictionCount) {
+}
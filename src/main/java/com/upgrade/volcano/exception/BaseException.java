@@ -1,17 +1,21 @@
 package com.upgrade.volcano.exception;
 
+/**
+ * Business outcome which is returned to the client as error response (rejected booking, validation error).
+ * It is not a bug, so it is created without stack trace: rejections are the most common response under load.
+ */
 public class BaseException extends RuntimeException {
     private ErrorCode code;
     private String message;
 
     public BaseException(String message, ErrorCode code) {
-        super(message);
+        super(message, null, false, false);
         this.code = code;
         this.message = message;
     }
 
     public BaseException(String message, Throwable cause, ErrorCode code) {
-        super(message, cause);
+        super(message, cause, false, false);
         this.code = code;
         this.message = message;
     }
@@ -6,5 +6,6 @@ public enum ErrorCode {
     BOOKING_DOES_NOT_EXIST,
     INTERNAL_ERROR,
     MALFORMED_REQUEST_ERROR,
-    VALIDATION_ERROR
+    VALIDATION_ERROR,
+    IDEMPOTENCY_KEY_CONFLICT
 }
@@ -0,0 +1,12 @@
+package com.upgrade.volcano.exception;
+
+public class IdempotencyKeyConflict extends BaseException {
+
+    public IdempotencyKeyConflict(String message) {
+        super(message, ErrorCode.IDEMPOTENCY_KEY_CONFLICT);
+    }
+
+    public static IdempotencyKeyConflict reused(String key) {
+        return new IdempotencyKeyConflict("Idempotency key %s was already used for another request".formatted(key));
+    }
+}
@@ -0,0 +1,20 @@
+package com.upgrade.volcano.idempotency;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which booking was created for an Idempotency-Key, so retried POST /booking gets the same booking back
+ * instead of BookingForUserExist. In memory store is for one instance, jdbc store is shared by all instances
+ * (volcano.idempotency.store=jdbc).
+ */
+public interface IdempotencyStore {
+
+    /**
+     * Returns booking stored for the key or runs booking and stores its result. Concurrent calls with the same key
+     * wait for the first one and get its result or its error. Failed booking is not stored, so next retry books again.
+     *
+     * @param fingerprint what was requested, the same key with another request is rejected with IdempotencyKeyConflict
+     */
+    UUID book(String key, String fingerprint, Supplier<UUID> booking);
+}
@@ -0,0 +1,67 @@
+package com.upgrade.volcano.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.upgrade.volcano.exception.IdempotencyKeyConflict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded and expiring map from key to the attempt which books for it. The first request puts its attempt and books,
+ * duplicates find the attempt and wait for its result, no lock is held while booking.
+ */
+@Component
+@ConditionalOnProperty(name = "volcano.idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, Attempt> attempts;
+
+    public InMemoryIdempotencyStore(@Value("${volcano.idempotency.maximum-size:100000}") long maximumSize,
+                                    @Value("${volcano.idempotency.ttl:24h}") Duration ttl) {
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public UUID book(String key, String fingerprint, Supplier<UUID> booking) {
+        Attempt mine = new Attempt(fingerprint, new CompletableFuture<>());
+        Attempt existing = attempts.asMap().putIfAbsent(key, mine);
+        if (existing == null) {
+            try {
+                UUID bookingId = booking.get();
+                mine.bookingId().complete(bookingId);
+                return bookingId;
+            } catch (RuntimeException e) {
+                // failure is not remembered, next retry books again
+                attempts.asMap().remove(key, mine);
+                mine.bookingId().completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        if (!existing.fingerprint().equals(fingerprint)) {
+            throw IdempotencyKeyConflict.reused(key);
+        }
+        try {
+            return existing.bookingId().join();
+        } catch (CompletionException e) {
+            // duplicate which waited for the first attempt gets the same answer
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Attempt(String fingerprint, CompletableFuture<UUID> bookingId) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.upgrade.volcano.idempotency;
+
+import com.upgrade.volcano.exception.IdempotencyKeyConflict;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Keys are rows of idempotency_key table, so all instances see them. Primary key decides which request books,
+ * others poll the row until booking id is there. Every statement is its own transaction, booking transaction
+ * is not touched by it.
+ * If instance dies in the middle of booking, its key is blocked until it expires.
+ */
+@Component
+@ConditionalOnProperty(name = "volcano.idempotency.store", havingValue = "jdbc")
+public class JdbcIdempotencyStore implements IdempotencyStore {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(20);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+
+    public JdbcIdempotencyStore(JdbcTemplate jdbcTemplate,
+                                @Value("${volcano.idempotency.ttl:24h}") Duration ttl,
+                                @Value("${volcano.idempotency.wait-timeout:10s}") Duration waitTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    public UUID book(String key, String fingerprint, Supplier<UUID> booking) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        while (true) {
+            // replay is one select
+            StoredKey stored = find(key);
+            if (stored == null && claim(key, fingerprint)) {
+                return bookClaimed(key, booking);
+            }
+
+            if (stored != null) {
+                if (!stored.fingerprint().equals(fingerprint)) {
+                    throw IdempotencyKeyConflict.reused(key);
+                }
+                if (stored.bookingId() != null) {
+                    return stored.bookingId();
+                }
+            }
+            // first request is still booking. if it fails the row is deleted and we try to claim it ourselves
+            if (System.nanoTime() - deadline > 0) {
+                throw new IdempotencyKeyConflict("Request with idempotency key %s is still in progress".formatted(key));
+            }
+            pause();
+        }
+    }
+
+    private UUID bookClaimed(String key, Supplier<UUID> booking) {
+        UUID bookingId;
+        try {
+            bookingId = booking.get();
+        } catch (RuntimeException e) {
+            jdbcTemplate.update("delete from idempotency_key where idempotency_key = ?", key);
+            throw e;
+        }
+        jdbcTemplate.update("update idempotency_key set booking_id = ? where idempotency_key = ?", bookingId, key);
+        return bookingId;
+    }
+
+    // expired rows are not taken into account, they are deleted when key is claimed again
+    private StoredKey find(String key) {
+        List<StoredKey> stored = jdbcTemplate.query(
+                "select fingerprint, booking_id from idempotency_key where idempotency_key = ? and created_at >= ?",
+                (rs, i) -> new StoredKey(rs.getString("fingerprint"), rs.getObject("booking_id", UUID.class)),
+                key, LocalDateTime.now().minus(ttl)
+        );
+        return stored.isEmpty() ? null : stored.get(0);
+    }
+
+    private boolean claim(String key, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.update("delete from idempotency_key where idempotency_key = ? and created_at < ?", key, now.minus(ttl));
+        try {
+            jdbcTemplate.update("insert into idempotency_key(idempotency_key, fingerprint, created_at) values (?, ?, ?)",
+                    key, fingerprint, now);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(POLL_INTERVAL.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for request with the same idempotency key", e);
+        }
+    }
+
+    private record StoredKey(String fingerprint, UUID bookingId) {
+    }
+}
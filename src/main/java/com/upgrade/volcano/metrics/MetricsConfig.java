@@ -0,0 +1,36 @@
+package com.upgrade.volcano.metrics;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Endpoint timers (http.server.requests), availability cache and hikari pool meters are bound by spring boot itself,
+ * here is what it doesn't know about: @Timed service methods and transactions. Everything is at /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    // static, so post processor doesn't make this configuration initialized too early
+    @Bean
+    public static BeanPostProcessor timedTransactionManagerPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PlatformTransactionManager transactionManager) {
+                    return new TimedTransactionManager(transactionManager, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,71 @@
+package com.upgrade.volcano.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Measures time from transaction begin to its commit or rollback, which is how long connection and row locks are held.
+ * Only outer transactions are measured, joined ones are part of them.
+ */
+public class TimedTransactionManager implements PlatformTransactionManager {
+
+    public static final String TRANSACTIONS = "volcano.transactions";
+
+    private final PlatformTransactionManager delegate;
+    private final MeterRegistry meterRegistry;
+    private final Timer committed;
+    private final Timer rolledBack;
+    private final Map<TransactionStatus, Timer.Sample> started = new ConcurrentHashMap<>();
+
+    public TimedTransactionManager(PlatformTransactionManager delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+        this.committed = Timer.builder(TRANSACTIONS).tag("outcome", "commit").register(meterRegistry);
+        this.rolledBack = Timer.builder(TRANSACTIONS).tag("outcome", "rollback").register(meterRegistry);
+    }
+
+    @Override
+    public TransactionStatus getTransaction(TransactionDefinition definition) throws TransactionException {
+        TransactionStatus status = delegate.getTransaction(definition);
+        if (status.isNewTransaction()) {
+            started.put(status, Timer.start(meterRegistry));
+        }
+        return status;
+    }
+
+    @Override
+    public void commit(TransactionStatus status) throws TransactionException {
+        // commit can turn into rollback (rollback only flag or failed commit), both are counted as rollback then
+        boolean rollbackOnly = status.isRollbackOnly();
+        boolean success = false;
+        try {
+            delegate.commit(status);
+            success = !rollbackOnly;
+        } finally {
+            stop(status, success ? committed : rolledBack);
+        }
+    }
+
+    @Override
+    public void rollback(TransactionStatus status) throws TransactionException {
+        try {
+            delegate.rollback(status);
+        } finally {
+            stop(status, rolledBack);
+        }
+    }
+
+    private void stop(TransactionStatus status, Timer timer) {
+        Timer.Sample sample = started.remove(status);
+        if (sample != null) {
+            sample.stop(timer);
+        }
+    }
+}
@@ -12,6 +12,7 @@ public class Booking {
     @Id
     @GeneratedValue
     private UUID id;
+    private int campsiteId = Campsite.DEFAULT_ID;
     private LocalDate date;
     private UUID bookingId;
 
@@ -23,6 +24,12 @@ public class Booking {
         this.bookingId = bookingId;
     }
 
+    public Booking(int campsiteId, LocalDate date, UUID bookingId) {
+        this.campsiteId = campsiteId;
+        this.date = date;
+        this.bookingId = bookingId;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -31,6 +38,14 @@ public class Booking {
         this.id = id;
     }
 
+    public int getCampsiteId() {
+        return campsiteId;
+    }
+
+    public void setCampsiteId(int campsiteId) {
+        this.campsiteId = campsiteId;
+    }
+
     public LocalDate getDate() {
         return date;
     }
@@ -0,0 +1,14 @@
+package com.upgrade.volcano.model;
+
+/**
+ * Campsites are rows of campsite table. Each campsite is a partition of availability: unique index of booking days,
+ * in memory index, date claims and cache entries are all per campsite, so campsites don't contend with each other.
+ */
+public final class Campsite {
+
+    // the only campsite before there were many, requests without campsite are for it
+    public static final int DEFAULT_ID = 1;
+
+    private Campsite() {
+    }
+}
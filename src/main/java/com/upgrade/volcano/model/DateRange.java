@@ -0,0 +1,23 @@
+package com.upgrade.volcano.model;
+
+import java.time.LocalDate;
+
+/**
+ * Inclusive range of days. It is used as availability cache key and to describe which days were changed by a write.
+ */
+public record DateRange(LocalDate startDate, LocalDate endDate) {
+
+    // window which is shown when client doesn't ask for specific dates
+    public static DateRange defaultWindow() {
+        LocalDate today = LocalDate.now();
+        return new DateRange(today, today.plusMonths(1));
+    }
+
+    public boolean overlaps(DateRange other) {
+        // if we don't know bounds of the range we can't say that it is not affected
+        if (startDate == null || endDate == null || other.startDate == null || other.endDate == null) {
+            return true;
+        }
+        return !startDate.isAfter(other.endDate) && !other.startDate.isAfter(endDate);
+    }
+}
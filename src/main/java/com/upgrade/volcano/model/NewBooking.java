@@ -0,0 +1,15 @@
+package com.upgrade.volcano.model;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Booking which is not saved yet, ids are generated before insert as for a single booking.
+ */
+public record NewBooking(UUID bookingId, UUID guestId, int campsiteId, LocalDate startDate, LocalDate endDate,
+                         String email, String name) {
+
+    public static NewBooking of(int campsiteId, LocalDate startDate, LocalDate endDate, String email, String name) {
+        return new NewBooking(UUID.randomUUID(), UUID.randomUUID(), campsiteId, startDate, endDate, email, name);
+    }
+}
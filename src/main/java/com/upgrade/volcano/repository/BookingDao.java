@@ -11,4 +11,6 @@ public interface BookingDao extends CrudRepository<Booking, UUID> {
     List<Booking> findAllByDateBetween(LocalDate startDate, LocalDate endDate);
 
     List<Booking> findAllByBookingId(UUID bookingId);
+
+    boolean existsByBookingId(UUID bookingId);
 }
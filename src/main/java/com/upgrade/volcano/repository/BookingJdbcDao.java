@@ -0,0 +1,120 @@
+package com.upgrade.volcano.repository;
+
+import com.upgrade.volcano.model.NewBooking;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Write path of booking. It goes around JPA on purpose: there are no reads before inserts, business checks
+ * (one booking per date, one booking per user) are done by unique indexes during the insert itself,
+ * and all days of one booking go to DB as one prepared JDBC batch.
+ * Violation of unique index comes out as DuplicateKeyException.
+ */
+@Repository
+public class BookingJdbcDao {
+
+    private static final String INSERT_LINK = "insert into booking_to_guest(booking_id, guest_id) values (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookingJdbcDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // guest email is unique
+    public void insertGuest(UUID guestId, String email, String name) {
+        jdbcTemplate.update("insert into guest(id, email, name) values (?, ?, ?)", guestId, email, name);
+    }
+
+    // booking date is unique per campsite (unique_booking_date)
+    public void insertBookingDays(int campsiteId, UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        insertDays(bookingDays(campsiteId, bookingId, startDate, endDate));
+    }
+
+    // days go as one prepared batch and the link as one more statement, it is a different statement text
+    public void insertBookingDaysAndGuestLink(int campsiteId, UUID bookingId, UUID guestId, LocalDate startDate,
+                                              LocalDate endDate) {
+        insertBookingDays(campsiteId, bookingId, startDate, endDate);
+        jdbcTemplate.update(INSERT_LINK, bookingId, guestId);
+    }
+
+    // several bookings at once: all guests as one batch, then all days as another one and all links as the third
+
+    public void insertGuests(List<NewBooking> bookings) {
+        jdbcTemplate.batchUpdate("insert into guest(id, email, name) values (?, ?, ?)",
+                bookings.stream()
+                        .map(b -> new Object[]{b.guestId(), b.email(), b.name()})
+                        .collect(Collectors.toList()));
+    }
+
+    public void insertBookingDaysAndGuestLinks(List<NewBooking> bookings) {
+        List<BookingDay> days = new ArrayList<>();
+        for (NewBooking b : bookings) {
+            days.addAll(bookingDays(b.campsiteId(), b.bookingId(), b.startDate(), b.endDate()));
+        }
+        insertDays(days);
+        jdbcTemplate.batchUpdate(INSERT_LINK,
+                bookings.stream()
+                        .map(b -> new Object[]{b.bookingId(), b.guestId()})
+                        .collect(Collectors.toList()));
+    }
+
+    // not in a read-only transaction, so it is answered by the primary even when replica is on
+    public boolean guestExists(String email) {
+        return jdbcTemplate.query("select 1 from guest where email = ?", ResultSet::next, email);
+    }
+
+    // null if there is no such booking
+    public Integer findCampsiteId(UUID bookingId) {
+        return jdbcTemplate.query("select campsite_id from booking where booking_id = ? limit 1",
+                rs -> rs.next() ? rs.getInt("campsite_id") : null, bookingId);
+    }
+
+    // all methods below are set based, they return number of affected rows and 0 means there is no such booking
+
+    public int deleteBookingDays(UUID bookingId) {
+        return jdbcTemplate.update("delete from booking where booking_id = ?", bookingId);
+    }
+
+    // booking_to_guest row is deleted by cascade
+    public int deleteGuestByBookingId(UUID bookingId) {
+        return jdbcTemplate.update(
+                "delete from guest where id = (select guest_id from booking_to_guest where booking_id = ?)",
+                bookingId
+        );
+    }
+
+    // null email or name means keep current value
+    public int updateGuestByBookingId(UUID bookingId, String email, String name) {
+        return jdbcTemplate.update(
+                "update guest set email = coalesce(?, email), name = coalesce(?, name) " +
+                        "where id = (select guest_id from booking_to_guest where booking_id = ?)",
+                email, name, bookingId
+        );
+    }
+
+    private void insertDays(List<BookingDay> days) {
+        jdbcTemplate.batchUpdate("insert into booking(campsite_id, date, booking_id) values (?, ?, ?)",
+                days, days.size(), (ps, day) -> {
+                    ps.setInt(1, day.campsiteId());
+                    ps.setObject(2, day.date());
+                    ps.setObject(3, day.bookingId());
+                });
+    }
+
+    private List<BookingDay> bookingDays(int campsiteId, UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        return startDate.datesUntil(endDate.plusDays(1))
+                .map(d -> new BookingDay(campsiteId, d, bookingId))
+                .collect(Collectors.toList());
+    }
+
+    private record BookingDay(int campsiteId, LocalDate date, UUID bookingId) {
+    }
+}
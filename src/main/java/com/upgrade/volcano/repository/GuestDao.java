@@ -2,10 +2,17 @@ package com.upgrade.volcano.repository;
 
 import com.upgrade.volcano.model.Guest;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 import java.util.UUID;
 
 public interface GuestDao extends CrudRepository<Guest, UUID> {
     Optional<Guest> findByEmail(String email);
+
+    // called before booking transaction, so with a replica (ReplicaRoutingConfig) it is answered there. replica which
+    // is behind can miss a new guest (unique email stops the booking then) or still have a cancelled one, so
+    // BookingService confirms "exists" on the primary
+    @Transactional(readOnly = true)
+    boolean existsByEmail(String email);
 }
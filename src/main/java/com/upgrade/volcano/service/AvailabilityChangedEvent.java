@@ -0,0 +1,22 @@
+package com.upgrade.volcano.service;
+
+import com.upgrade.volcano.model.DateRange;
+
+import java.util.List;
+
+/**
+ * Published after commit of a write which changed availability. Contains only days that were actually changed,
+ * for update these are both old and new dates of the booking.
+ * Change made by another instance comes with fromPeer, index is already refreshed for it and it is not sent back
+ * to the cluster.
+ */
+public record AvailabilityChangedEvent(int campsiteId, List<DateRange> ranges, boolean fromPeer) {
+
+    public AvailabilityChangedEvent(int campsiteId, List<DateRange> ranges) {
+        this(campsiteId, ranges, false);
+    }
+
+    public boolean overlaps(int campsiteId, DateRange window) {
+        return this.campsiteId == campsiteId && ranges.stream().anyMatch(r -> r.overlaps(window));
+    }
+}
@@ -0,0 +1,459 @@
+package com.upgrade.volcano.service;
+
+import com.upgrade.volcano.dto.AvailabilitySnapshot;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.snapshot.StateSnapshot;
+import com.upgrade.volcano.snapshot.StateSnapshotFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In memory copy of the booking table. For each campsite and day it keeps a bit "is it taken" and id of the booking
+ * that took it. It is loaded once on startup and after that it is changed only by committed writes, so availability
+ * requests never go to the DB. With a state snapshot (durable profile) start reads only rows inserted after it.
+ * Every campsite is a separate partition with its own lock, so writes to different campsites don't wait for each other.
+ */
+@Component
+public class AvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    // refresh reads which were overtaken by local writes, before the read is done under the lock
+    private static final int REFRESH_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // one counter for all campsites, version keeps growing across reloads, so nothing built from the old data is
+    // taken for current
+    private final AtomicLong versions = new AtomicLong();
+    // versions are counted by every instance on its own and from the start again after restart (durable profile keeps
+    // bookings, not versions), the same version of another instance or of a previous start means nothing.
+    // whatever is given out to clients with a version has to go with this id too
+    private final String epoch = Long.toUnsignedString(UUID.randomUUID().getLeastSignificantBits(), 36);
+    private volatile Map<Integer, Partition> partitions = new ConcurrentHashMap<>();
+    // update and cancel know only booking id, this is how we find which campsite they change
+    private volatile Map<UUID, Integer> campsiteOfBooking = new ConcurrentHashMap<>();
+
+    private final ObjectProvider<StateSnapshotFile> snapshotFile;
+
+    public AvailabilityIndex(JdbcTemplate jdbcTemplate, ObjectProvider<StateSnapshotFile> snapshotFile) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotFile = snapshotFile;
+    }
+
+    @PostConstruct
+    public void init() {
+        Optional<StateSnapshot> snapshot = Optional.ofNullable(snapshotFile.getIfAvailable())
+                .flatMap(StateSnapshotFile::restore);
+        if (snapshot.isPresent()) {
+            restore(snapshot.get());
+        } else {
+            load();
+        }
+    }
+
+    public void load() {
+        long version = versions.incrementAndGet();
+        long origin = LocalDate.now().toEpochDay();
+        Map<Integer, Partition> loaded = new ConcurrentHashMap<>();
+        Map<UUID, Integer> loadedBookings = new ConcurrentHashMap<>();
+        jdbcTemplate.query("select id from campsite",
+                rs -> {
+                    loaded.put(rs.getInt("id"), new Partition(new Days(origin, version)));
+                });
+        // past days can't be booked or asked for availability, so there is no reason to keep them
+        jdbcTemplate.query("select campsite_id, date, booking_id from booking where date >= ?",
+                rs -> {
+                    int campsiteId = rs.getInt("campsite_id");
+                    UUID bookingId = rs.getObject("booking_id", UUID.class);
+                    loaded.computeIfAbsent(campsiteId, id -> new Partition(new Days(origin, version)))
+                            .days.occupy(rs.getObject("date", LocalDate.class), bookingId);
+                    loadedBookings.put(bookingId, campsiteId);
+                },
+                LocalDate.ofEpochDay(origin));
+        partitions = loaded;
+        campsiteOfBooking = loadedBookings;
+        log.info("Availability index is loaded, {} campsites, {} days are booked", loaded.size(),
+                loaded.values().stream().mapToInt(p -> p.days.occupied.cardinality()).sum());
+    }
+
+    // days of the snapshot which are not in the past yet plus rows inserted after it
+    private void restore(StateSnapshot snapshot) {
+        long version = versions.incrementAndGet();
+        long origin = LocalDate.now().toEpochDay();
+        Map<Integer, Partition> loaded = new ConcurrentHashMap<>();
+        Map<UUID, Integer> loadedBookings = new ConcurrentHashMap<>();
+        jdbcTemplate.query("select id from campsite",
+                rs -> {
+                    loaded.put(rs.getInt("id"), new Partition(new Days(origin, version)));
+                });
+        for (StateSnapshot.BookedDay day : snapshot.days()) {
+            if (day.date().toEpochDay() >= origin) {
+                loaded.computeIfAbsent(day.campsiteId(), id -> new Partition(new Days(origin, version)))
+                        .days.occupy(day.date(), day.bookingId());
+                loadedBookings.put(day.bookingId(), day.campsiteId());
+            }
+        }
+        jdbcTemplate.query("select campsite_id, date, booking_id from booking where seq > ? and date >= ?",
+                rs -> {
+                    int campsiteId = rs.getInt("campsite_id");
+                    UUID bookingId = rs.getObject("booking_id", UUID.class);
+                    loaded.computeIfAbsent(campsiteId, id -> new Partition(new Days(origin, version)))
+                            .days.occupy(rs.getObject("date", LocalDate.class), bookingId);
+                    loadedBookings.put(bookingId, campsiteId);
+                },
+                snapshot.lastSeq(), LocalDate.ofEpochDay(origin));
+        partitions = loaded;
+        campsiteOfBooking = loadedBookings;
+        log.info("Availability index is restored from snapshot, {} campsites, {} days are booked", loaded.size(),
+                loaded.values().stream().mapToInt(p -> p.days.occupied.cardinality()).sum());
+    }
+
+    public boolean hasCampsite(int campsiteId) {
+        return partitions.containsKey(campsiteId);
+    }
+
+    // null if index doesn't know such booking
+    public Integer getCampsite(UUID bookingId) {
+        return campsiteOfBooking.get(bookingId);
+    }
+
+    public List<LocalDate> getBookedDates(int campsiteId, LocalDate startDate, LocalDate endDate) {
+        return days(campsiteId).bookedDates(startDate, endDate, null);
+    }
+
+    // booked days and version of the window they were taken from, both from the same state of the index
+    public AvailabilitySnapshot getSnapshot(int campsiteId, LocalDate startDate, LocalDate endDate) {
+        Days current = days(campsiteId);
+        return AvailabilitySnapshot.of(
+                current.windowVersion(startDate, endDate),
+                startDate,
+                endDate,
+                current.bookedDates(startDate, endDate, null)
+        );
+    }
+
+    // current availability of all days of the ranges (changed days of a write, windows of batch request),
+    // version is the last version of the campsite
+    public AvailabilitySnapshot getSnapshot(int campsiteId, List<DateRange> ranges) {
+        Days current = days(campsiteId);
+        // ranges can overlap, for example when booking is moved by one day, every day is there once
+        SortedSet<LocalDate> requestedDays = new TreeSet<>();
+        ranges.forEach(r -> r.startDate().datesUntil(r.endDate().plusDays(1)).forEach(requestedDays::add));
+        if (requestedDays.isEmpty()) {
+            return AvailabilitySnapshot.of(current.version, requestedDays, List.of());
+        }
+        // one pass over booked days of the whole span, days between ranges are skipped
+        List<LocalDate> bookedDates = current.bookedDates(requestedDays.first(), requestedDays.last(), null).stream()
+                .filter(requestedDays::contains)
+                .collect(Collectors.toList());
+        return AvailabilitySnapshot.of(current.version, requestedDays, bookedDates);
+    }
+
+    // id of this instance's versions, see versions
+    public String getEpoch() {
+        return epoch;
+    }
+
+    // global version, it grows with every write to any campsite
+    public long getVersion() {
+        return versions.get();
+    }
+
+    // last global version which changed any day of the window. it doesn't change when writes touch other days
+    // or other campsites
+    public long getVersion(int campsiteId, LocalDate startDate, LocalDate endDate) {
+        return days(campsiteId).windowVersion(startDate, endDate);
+    }
+
+    // days in range which are taken by any booking except given one
+    public List<LocalDate> getDatesBookedByOthers(int campsiteId, UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        return days(campsiteId).bookedDates(startDate, endDate, bookingId);
+    }
+
+    // all write methods return ranges of days which were changed
+
+    public List<DateRange> occupy(int campsiteId, UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        Partition partition = partition(campsiteId);
+        synchronized (partition) {
+            Days changed = partition.days.copy(versions.incrementAndGet());
+            changed.occupy(bookingId, startDate, endDate);
+            partition.days = changed;
+        }
+        campsiteOfBooking.put(bookingId, campsiteId);
+        return List.of(new DateRange(startDate, endDate));
+    }
+
+    public List<DateRange> release(int campsiteId, UUID bookingId) {
+        Partition partition = partition(campsiteId);
+        List<DateRange> released;
+        synchronized (partition) {
+            Days changed = partition.days.copy(versions.incrementAndGet());
+            released = changed.release(bookingId);
+            partition.days = changed;
+        }
+        campsiteOfBooking.remove(bookingId);
+        return released;
+    }
+
+    public List<DateRange> move(int campsiteId, UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        Partition partition = partition(campsiteId);
+        List<DateRange> affected;
+        synchronized (partition) {
+            Days changed = partition.days.copy(versions.incrementAndGet());
+            affected = new ArrayList<>(changed.release(bookingId));
+            changed.occupy(bookingId, startDate, endDate);
+            partition.days = changed;
+        }
+        affected.add(new DateRange(startDate, endDate));
+        return affected;
+    }
+
+    // days changed by another instance are read again from the DB. it is read without the lock, so local writes
+    // and readers of the campsite don't wait for a DB round trip (and on virtual threads carrier isn't pinned for it).
+    // if a local write was applied while we were reading, it may be missing in what we read: read is repeated, after
+    // a few tries it is done under the lock
+    public List<DateRange> refresh(int campsiteId, List<DateRange> ranges) {
+        Partition partition = partition(campsiteId);
+        for (int attempt = 0; attempt < REFRESH_ATTEMPTS; attempt++) {
+            long readVersion = partition.days.version;
+            List<BookedRow> booked = readBooked(campsiteId, ranges);
+            synchronized (partition) {
+                if (partition.days.version == readVersion) {
+                    apply(campsiteId, partition, ranges, booked);
+                    return ranges;
+                }
+            }
+        }
+        synchronized (partition) {
+            apply(campsiteId, partition, ranges, readBooked(campsiteId, ranges));
+        }
+        return ranges;
+    }
+
+    private List<BookedRow> readBooked(int campsiteId, List<DateRange> ranges) {
+        List<BookedRow> booked = new ArrayList<>();
+        for (DateRange range : ranges) {
+            jdbcTemplate.query("select date, booking_id from booking where campsite_id = ? and date between ? and ?",
+                    rs -> {
+                        booked.add(new BookedRow(rs.getObject("date", LocalDate.class), rs.getObject("booking_id", UUID.class)));
+                    },
+                    campsiteId, range.startDate(), range.endDate());
+        }
+        return booked;
+    }
+
+    // called under the partition lock
+    private void apply(int campsiteId, Partition partition, List<DateRange> ranges, List<BookedRow> booked) {
+        Days changed = partition.days.copy(versions.incrementAndGet());
+        Set<UUID> cleared = new HashSet<>();
+        Map<UUID, Integer> found = new HashMap<>();
+        ranges.forEach(range -> cleared.addAll(changed.clear(range.startDate(), range.endDate())));
+        for (BookedRow row : booked) {
+            changed.occupy(row.date(), row.bookingId());
+            found.put(row.bookingId(), campsiteId);
+        }
+        // booking which lost the days of the ranges may still hold others, moved booking holds the new ones
+        cleared.removeAll(found.keySet());
+        cleared.removeIf(changed::holdsAny);
+        partition.days = changed;
+        campsiteOfBooking.putAll(found);
+        cleared.forEach(campsiteOfBooking::remove);
+    }
+
+    // campsite which is not in the index has nothing booked
+    private Days days(int campsiteId) {
+        Partition partition = partitions.get(campsiteId);
+        return partition != null ? partition.days : new Days(LocalDate.now().toEpochDay(), 0);
+    }
+
+    // campsite added after load gets its partition with the first write
+    private Partition partition(int campsiteId) {
+        return partitions.computeIfAbsent(campsiteId, id -> new Partition(new Days(LocalDate.now().toEpochDay(), 0)));
+    }
+
+    private record BookedRow(LocalDate date, UUID bookingId) {
+    }
+
+    // readers just take current days without any locking, writers (they are rare) change a copy and publish it
+    private static final class Partition {
+        private volatile Days days;
+
+        private Partition(Days days) {
+            this.days = days;
+        }
+    }
+
+    /**
+     * Slot i is the day origin + i. Booking id is kept as two primitive arrays instead of UUID objects.
+     * Every change makes a copy with the next global version and marks changed slots with it.
+     */
+    private static final class Days {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private final long origin;
+        private final long version;
+        // version of the load, days which were not changed since are of this version
+        private final long loadedVersion;
+        private final BitSet occupied;
+        private long[] mostSigBits;
+        private long[] leastSigBits;
+        private long[] changedInVersion;
+
+        private Days(long origin, long version) {
+            this(origin, version, version, new BitSet(INITIAL_CAPACITY), new long[INITIAL_CAPACITY],
+                    new long[INITIAL_CAPACITY], new long[INITIAL_CAPACITY]);
+        }
+
+        private Days(long origin, long version, long loadedVersion, BitSet occupied, long[] mostSigBits,
+                     long[] leastSigBits, long[] changedInVersion) {
+            this.origin = origin;
+            this.version = version;
+            this.loadedVersion = loadedVersion;
+            this.occupied = occupied;
+            this.mostSigBits = mostSigBits;
+            this.leastSigBits = leastSigBits;
+            this.changedInVersion = changedInVersion;
+        }
+
+        private Days copy(long version) {
+            return new Days(origin, version, loadedVersion, (BitSet) occupied.clone(), mostSigBits.clone(),
+                    leastSigBits.clone(), changedInVersion.clone());
+        }
+
+        private void occupy(UUID bookingId, LocalDate startDate, LocalDate endDate) {
+            startDate.datesUntil(endDate.plusDays(1)).forEach(d -> occupy(d, bookingId));
+        }
+
+        private void occupy(LocalDate date, UUID bookingId) {
+            long slot = date.toEpochDay() - origin;
+            if (slot < 0) {
+                return;
+            }
+            ensureCapacity((int) slot);
+            occupied.set((int) slot);
+            changedInVersion[(int) slot] = version;
+            mostSigBits[(int) slot] = bookingId.getMostSignificantBits();
+            leastSigBits[(int) slot] = bookingId.getLeastSignificantBits();
+        }
+
+        // returns released days merged into continuous ranges
+        private List<DateRange> release(UUID bookingId) {
+            List<DateRange> released = new ArrayList<>();
+            int runStart = -1;
+            int runEnd = -1;
+            for (int slot = occupied.nextSetBit(0); slot >= 0; slot = occupied.nextSetBit(slot + 1)) {
+                if (!isBookedBy(slot, bookingId)) {
+                    continue;
+                }
+                occupied.clear(slot);
+                changedInVersion[slot] = version;
+                if (runStart >= 0 && slot != runEnd + 1) {
+                    released.add(range(runStart, runEnd));
+                    runStart = -1;
+                }
+                if (runStart < 0) {
+                    runStart = slot;
+                }
+                runEnd = slot;
+            }
+            if (runStart >= 0) {
+                released.add(range(runStart, runEnd));
+            }
+            return released;
+        }
+
+        // frees all days of the range no matter who took them, returns ids of bookings which had them
+        private Set<UUID> clear(LocalDate startDate, LocalDate endDate) {
+            Set<UUID> cleared = new HashSet<>();
+            long last = endDate.toEpochDay() - origin;
+            if (last < 0) {
+                return cleared;
+            }
+            int from = (int) Math.max(0, startDate.toEpochDay() - origin);
+            ensureCapacity((int) last);
+            for (int slot = from; slot <= last; slot++) {
+                if (occupied.get(slot)) {
+                    occupied.clear(slot);
+                    cleared.add(new UUID(mostSigBits[slot], leastSigBits[slot]));
+                }
+                changedInVersion[slot] = version;
+            }
+            return cleared;
+        }
+
+        private boolean holdsAny(UUID bookingId) {
+            for (int slot = occupied.nextSetBit(0); slot >= 0; slot = occupied.nextSetBit(slot + 1)) {
+                if (isBookedBy(slot, bookingId)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private DateRange range(int fromSlot, int toSlot) {
+            return new DateRange(LocalDate.ofEpochDay(origin + fromSlot), LocalDate.ofEpochDay(origin + toSlot));
+        }
+
+        private List<LocalDate> bookedDates(LocalDate startDate, LocalDate endDate, UUID excludedBookingId) {
+            long last = endDate.toEpochDay() - origin;
+            if (last < 0) {
+                return List.of();
+            }
+            int from = (int) Math.max(0, startDate.toEpochDay() - origin);
+            List<LocalDate> result = new ArrayList<>();
+            for (int slot = occupied.nextSetBit(from); slot >= 0 && slot <= last; slot = occupied.nextSetBit(slot + 1)) {
+                if (excludedBookingId == null || !isBookedBy(slot, excludedBookingId)) {
+                    result.add(LocalDate.ofEpochDay(origin + slot));
+                }
+            }
+            return result;
+        }
+
+        private long windowVersion(LocalDate startDate, LocalDate endDate) {
+            long result = loadedVersion;
+            int from = (int) Math.max(0, startDate.toEpochDay() - origin);
+            long last = Math.min(endDate.toEpochDay() - origin, changedInVersion.length - 1);
+            for (int slot = from; slot <= last; slot++) {
+                result = Math.max(result, changedInVersion[slot]);
+            }
+            return result;
+        }
+
+        private boolean isBookedBy(int slot, UUID bookingId) {
+            return mostSigBits[slot] == bookingId.getMostSignificantBits()
+                    && leastSigBits[slot] == bookingId.getLeastSignificantBits();
+        }
+
+        private void ensureCapacity(int slot) {
+            if (slot < mostSigBits.length) {
+                return;
+            }
+            int capacity = Math.max(mostSigBits.length * 2, slot + 1);
+            mostSigBits = Arrays.copyOf(mostSigBits, capacity);
+            leastSigBits = Arrays.copyOf(leastSigBits, capacity);
+            changedInVersion = Arrays.copyOf(changedInVersion, capacity);
+        }
+    }
+}
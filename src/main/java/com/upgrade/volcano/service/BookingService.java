@@ -1,176 +1,295 @@
 package com.upgrade.volcano.service;
 
+import com.upgrade.volcano.dto.AvailabilitySnapshot;
 import com.upgrade.volcano.exception.BookingDoesNotExist;
 import com.upgrade.volcano.exception.BookingForDatesExist;
 import com.upgrade.volcano.exception.BookingForUserExist;
-import com.upgrade.volcano.model.Booking;
-import com.upgrade.volcano.model.BookingToGuest;
-import com.upgrade.volcano.model.Guest;
+import com.upgrade.volcano.exception.ClientValidationException;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.model.NewBooking;
 import com.upgrade.volcano.repository.BookingDao;
-import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.BookingJdbcDao;
 import com.upgrade.volcano.repository.GuestDao;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class BookingService {
 
     private final BookingDao bookingDao;
+    private final BookingJdbcDao bookingJdbcDao;
     private final GuestDao guestDao;
-    private final BookingToGuestDao bookingToGuestDao;
+    private final AvailabilityIndex availabilityIndex;
+    private final GuestEmailIndex guestEmailIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    // unique indexes which rejected a write, with claims in front of the DB it is expected to stay rare
+    private final Counter dateConflicts;
+    private final Counter emailConflicts;
+    // with a replica email lookup is answered there, but it gates a booking, so "taken" is confirmed on the primary
+    private final boolean confirmEmailOnPrimary;
+
+    public static final String TIMER = "volcano.booking.service";
+    public static final String CONFLICTS = "volcano.booking.conflicts";
 
     private static final Logger log = LoggerFactory.getLogger(BookingService.class);
 
-    public BookingService(BookingDao bookingDao, GuestDao guestDao, BookingToGuestDao bookingToGuestDao) {
+    public BookingService(BookingDao bookingDao, BookingJdbcDao bookingJdbcDao, GuestDao guestDao,
+                          AvailabilityIndex availabilityIndex, GuestEmailIndex guestEmailIndex,
+                          ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                          @Value("${volcano.datasource.replica.enabled:false}") boolean confirmEmailOnPrimary) {
         this.bookingDao = bookingDao;
+        this.bookingJdbcDao = bookingJdbcDao;
         this.guestDao = guestDao;
-        this.bookingToGuestDao = bookingToGuestDao;
+        this.availabilityIndex = availabilityIndex;
+        this.guestEmailIndex = guestEmailIndex;
+        this.eventPublisher = eventPublisher;
+        this.dateConflicts = meterRegistry.counter(CONFLICTS, "constraint", "unique_booking_date");
+        this.emailConflicts = meterRegistry.counter(CONFLICTS, "constraint", "guest_email");
+        this.confirmEmailOnPrimary = confirmEmailOnPrimary;
     }
 
+    @Timed(TIMER)
     @Transactional
-    public UUID book(LocalDate startDate, LocalDate endDate, String email, String name) {
-        // business validations
-        // booking for email doesn't exist
-        Optional<Guest> existingGuest = guestDao.findByEmail(email);
-        if (existingGuest.isPresent()) {
-            throw new BookingForUserExist(existingGuest.get().getEmail());
-        }
-        // booking for selected dates does not exist
-        List<Booking> existingBookingList = bookingDao.findAllByDateBetween(startDate, endDate);
-        if (!existingBookingList.isEmpty()) {
-            throw new BookingForDatesExist(existingBookingList.stream().map(Booking::getDate).collect(Collectors.toList()));
-        }
-
-        // saving new booking and user
+    public UUID book(int campsiteId, LocalDate startDate, LocalDate endDate, String email, String name) {
         // generating unique booking id
         // don't worry about uuid uniqueness since I use UUID, risk of getting duplicate is almost impossible
         UUID bookingId = UUID.randomUUID();
+        UUID guestId = UUID.randomUUID();
 
-        return createFullBooking(startDate, endDate, email, name, bookingId);
-    }
-
-    private UUID createFullBooking(LocalDate startDate, LocalDate endDate, String email, String name, UUID bookingId) {
-        bookDates(startDate, endDate, bookingId);
-        Guest guest = guestDao.save(new Guest(email, name));
-        bookingToGuestDao.save(new BookingToGuest(bookingId, guest.getId()));
+        // business validations are not done by reads upfront, they are done by unique indexes during inserts:
+        // booking for email doesn't exist - unique email of the guest
+        try {
+            bookingJdbcDao.insertGuest(guestId, email, name);
+        } catch (DuplicateKeyException e) {
+            emailConflicts.increment();
+            throw new BookingForUserExist(email);
+        }
+        // even if transaction is rolled back later, extra email in the filter only costs one lookup
+        guestEmailIndex.add(email);
+        // booking for selected dates does not exist - unique_booking_date (per campsite), all days go as one batch,
+        // link to guest after them
+        try {
+            bookingJdbcDao.insertBookingDaysAndGuestLink(campsiteId, bookingId, guestId, startDate, endDate);
+        } catch (DuplicateKeyException e) {
+            dateConflicts.increment();
+            throw bookingForDatesExist(campsiteId, bookingId, startDate, endDate);
+        }
 
+        afterCommit(campsiteId, () -> availabilityIndex.occupy(campsiteId, bookingId, startDate, endDate));
         return bookingId;
     }
 
-    private void bookDates(LocalDate startDate, LocalDate endDate, UUID bookingId) {
-        // for each day of booking we create a booking entity
-        List<Booking> bookingList = startDate.datesUntil(endDate.plusDays(1)).map(d -> {
-            Booking booking = new Booking();
-            booking.setBookingId(bookingId);
-            booking.setDate(d);
-            return booking;
-        }).collect(Collectors.toList());
-        bookingDao.saveAll(bookingList);
+    /**
+     * Several bookings in one transaction, used by BookingBatcher. Bookings must not conflict with each other, conflict
+     * with DB is not translated: whole batch is rolled back with DuplicateKeyException.
+     */
+    @Timed(TIMER)
+    @Transactional
+    public void bookAll(List<NewBooking> bookings) {
+        bookingJdbcDao.insertGuests(bookings);
+        bookingJdbcDao.insertBookingDaysAndGuestLinks(bookings);
+
+        for (NewBooking b : bookings) {
+            guestEmailIndex.add(b.email());
+            afterCommit(b.campsiteId(), () -> availabilityIndex.occupy(b.campsiteId(), b.bookingId(), b.startDate(), b.endDate()));
+        }
     }
 
-    @Transactional(readOnly = true)
-    public List<Booking> getBookedDates(LocalDate startDate, LocalDate endDate) {
-        return bookingDao.findAllByDateBetween(startDate, endDate);
+    private void bookDates(int campsiteId, LocalDate startDate, LocalDate endDate, UUID bookingId) {
+        // for each day of booking we create a booking row
+        try {
+            bookingJdbcDao.insertBookingDays(campsiteId, bookingId, startDate, endDate);
+        } catch (DuplicateKeyException e) {
+            dateConflicts.increment();
+            throw bookingForDatesExist(campsiteId, bookingId, startDate, endDate);
+        }
     }
 
-    @Transactional
-    public void cancel(UUID bookingId) {
-        deleteBooking(bookingId);
+    // called before days are claimed and transaction is opened, so guest who already has a booking doesn't hold
+    // anybody's days. new email is answered from memory, only email which may be taken is looked up in the DB.
+    // replica which is behind may still have a guest who cancelled and books again, so its "taken" is checked on
+    // the primary. its "free" is not: unique email of the insert stops a guest it missed
+    @Timed(TIMER)
+    public void checkGuestHasNoBooking(String email) {
+        if (guestEmailIndex.mightExist(email) && guestDao.existsByEmail(email)
+                && (!confirmEmailOnPrimary || bookingJdbcDao.guestExists(email))) {
+            // the same conflict as unique email would report, it is just found before the insert
+            emailConflicts.increment();
+            throw new BookingForUserExist(email);
+        }
     }
 
-    private void deleteBooking(UUID bookingId) {
-        // checking and deleting bookings
-        List<Booking> bookingList = getBooking(bookingId);
-        bookingDao.deleteAll(bookingList);
+    // index knows which days are taken, so we don't need to query DB to say which dates are conflicting
+    private BookingForDatesExist bookingForDatesExist(int campsiteId, UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> conflicts = availabilityIndex.getDatesBookedByOthers(campsiteId, bookingId, startDate, endDate);
+        if (conflicts.isEmpty()) {
+            // other booking is committed, but index is not updated yet
+            conflicts = startDate.datesUntil(endDate.plusDays(1)).collect(Collectors.toList());
+        }
+        return new BookingForDatesExist(conflicts);
+    }
 
-        // let's find user and delete it too alongside with connection
-        Optional<UUID> guestId = deleteBookingToGuest(bookingId);
-        deleteGuest(guestId);
+    // answered from memory, DB is not touched here
+    @Timed(TIMER)
+    public List<LocalDate> getBookedDates(int campsiteId, LocalDate startDate, LocalDate endDate) {
+        return availabilityIndex.getBookedDates(campsiteId, startDate, endDate);
     }
 
-    // in my notation findXXX can return Optional<XXX>, but getXXX methods throws an exception if it can't find anything
-    private List<Booking> getBooking(UUID bookingId) {
-        List<Booking> bookingList = bookingDao.findAllByBookingId(bookingId);
-        if (bookingList.isEmpty()) {
-            throw new BookingDoesNotExist(bookingId);
+    // requests without campsite are for the default one, so clients of single campsite don't change. campsites are
+    // loaded into the index with bookings, so checking it doesn't go to the DB either
+    @Timed(TIMER)
+    public int resolveCampsite(Integer campsiteId) {
+        if (campsiteId == null) {
+            return Campsite.DEFAULT_ID;
+        }
+        if (!availabilityIndex.hasCampsite(campsiteId)) {
+            throw new ClientValidationException("Campsite %d does not exist".formatted(campsiteId));
         }
-        return bookingList;
+        return campsiteId;
     }
 
+    // campsite of a booking with days ahead, null for unknown booking
+    @Timed(TIMER)
+    public Integer getCampsite(UUID bookingId) {
+        return availabilityIndex.getCampsite(bookingId);
+    }
 
-    private void deleteGuest(Optional<UUID> guestId) {
-        if (guestId.isEmpty()) {
-            // we can't delete something that doesn't exist, we already logged that, so we just exit
-            return;
-        }
+    // cheap, doesn't build anything, clients use it to find out that they already have current availability
+    @Timed(TIMER)
+    public long getAvailabilityVersion(int campsiteId, LocalDate startDate, LocalDate endDate) {
+        return availabilityIndex.getVersion(campsiteId, startDate, endDate);
+    }
 
-        Optional<Guest> guest = guestDao.findById(guestId.get());
-        if (guest.isPresent()) {
-            guestDao.delete(guest.get());
-        } else {
-            // same idea as before, don't fail, log
-            log.error("Guest doesn't exist by id %s".formatted(guestId.get()));
-        }
+    // versions of different instances are not comparable, etag has this too
+    public String getAvailabilityEpoch() {
+        return availabilityIndex.getEpoch();
+    }
+
+    // availability is cached already encoded to json, cache hit is just writing bytes to the response.
+    // cache is evicted by AvailabilityCacheEvictor only for windows which overlap with changed days
+    @Timed(TIMER)
+    @Cacheable(value = "availability", keyGenerator = "availabilityKeyGenerator")
+    public AvailabilitySnapshot getAvailability(int campsiteId, LocalDate startDate, LocalDate endDate) {
+        return availabilityIndex.getSnapshot(campsiteId, startDate, endDate);
     }
 
-    private Optional<UUID> deleteBookingToGuest(UUID bookingId) {
-        Optional<BookingToGuest> bookingToGuest = bookingToGuestDao.findByBookingId(bookingId);
-        if (bookingToGuest.isPresent()) {
-            bookingToGuestDao.delete(bookingToGuest.get());
-            return Optional.ofNullable(bookingToGuest.get().getGuestId());
-        } else {
+    // cache miss can build its snapshot before a write and put it to the cache after eviction of the write,
+    // caller which sees that cached version is older than the window replaces it with this
+    @Timed(TIMER)
+    @CachePut(value = "availability", keyGenerator = "availabilityKeyGenerator")
+    public AvailabilitySnapshot rebuildAvailability(int campsiteId, LocalDate startDate, LocalDate endDate) {
+        return availabilityIndex.getSnapshot(campsiteId, startDate, endDate);
+    }
+
+    // availability of all days of all windows, each day once. not cached: index answers it in one pass anyway
+    @Timed(TIMER)
+    public AvailabilitySnapshot getAvailability(int campsiteId, List<DateRange> windows) {
+        return availabilityIndex.getSnapshot(campsiteId, windows);
+    }
+
+    @Timed(TIMER)
+    @Transactional
+    public void cancel(UUID bookingId) {
+        // two deletes no matter how many days are booked, number of deleted rows tells us if booking exists
+        if (bookingJdbcDao.deleteBookingDays(bookingId) == 0) {
+            throw new BookingDoesNotExist(bookingId);
+        }
+
+        // let's delete guest too, link to the booking goes with it by cascade
+        if (bookingJdbcDao.deleteGuestByBookingId(bookingId) == 0) {
             // we have integrity failure, I think we shouldn't throw an error, but this is definetely a problem with
             // creation, so let's log that
-            log.error("Booking to guest link doesn't exist by booking id %s".formatted(bookingId));
-            return Optional.empty();
+            log.error("Guest or booking to guest link doesn't exist by booking id %s".formatted(bookingId));
+        }
+        Integer campsiteId = availabilityIndex.getCampsite(bookingId);
+        if (campsiteId != null) {
+            afterCommit(campsiteId, () -> availabilityIndex.release(campsiteId, bookingId));
         }
     }
 
+    // index must reflect only committed data, so we change it only after successful commit
+    // and then notify everybody who depends on availability (cache) which days were changed
+    private void afterCommit(int campsiteId, Supplier<List<DateRange>> indexUpdate) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                List<DateRange> changed = indexUpdate.get();
+                if (!changed.isEmpty()) {
+                    eventPublisher.publishEvent(new AvailabilityChangedEvent(campsiteId, changed));
+                }
+            }
+        });
+    }
+
+    @Timed(TIMER)
     @Transactional
     public void update(UUID bookingId, LocalDate startDate, LocalDate endDate, String email, String name) {
-        // we get and check does booking even exist
-        List<Booking> booking = getBooking(bookingId);
+        boolean changeDates = startDate != null && endDate != null;
+        boolean changeGuest = StringUtils.hasText(email) || StringUtils.hasText(name);
 
         // if we are changing the dates, we delete previous booking dates and create new ones
-        if (startDate != null && endDate != null) {
-            bookingDao.deleteAll(booking);
-            bookDates(startDate, endDate, bookingId);
+        if (changeDates) {
+            // booking stays on its campsite. index knows it for every booking with days ahead, only booking which is
+            // all in the past is looked up in the DB
+            Integer indexed = availabilityIndex.getCampsite(bookingId);
+            Integer campsiteId = indexed != null ? indexed : bookingJdbcDao.findCampsiteId(bookingId);
+            // old days are deleted before new ones are inserted, so booking can be moved to overlapping dates
+            if (campsiteId == null || bookingJdbcDao.deleteBookingDays(bookingId) == 0) {
+                throw new BookingDoesNotExist(bookingId);
+            }
+            bookDates(campsiteId, startDate, endDate, bookingId);
+            afterCommit(campsiteId, () -> availabilityIndex.move(campsiteId, bookingId, startDate, endDate));
         }
 
-        // if we are changing email or name we are pulling guest entity and updating only what we need
-        if (StringUtils.hasText(email) || StringUtils.hasText(name)) {
+        // if we are changing email or name we update only what we need in one statement
+        if (changeGuest) {
             updateGuestByBookingId(bookingId, email, name);
         }
+
+        // nothing to change, but client still should know if there is no such booking
+        if (!changeDates && !changeGuest && !bookingDao.existsByBookingId(bookingId)) {
+            throw new BookingDoesNotExist(bookingId);
+        }
     }
 
     private void updateGuestByBookingId(UUID bookingId, String email, String name) {
-        Optional<BookingToGuest> bookingToGuest = bookingToGuestDao.findByBookingId(bookingId);
-        // if we can't find booking to guest for some reason and we meant to update it - it is critical error
-        if (bookingToGuest.isEmpty()) {
-            throw new RuntimeException("Can't find booking to guest by booking id %s".formatted(bookingId));
+        int updated;
+        try {
+            updated = bookingJdbcDao.updateGuestByBookingId(
+                    bookingId,
+                    StringUtils.hasText(email) ? email : null,
+                    StringUtils.hasText(name) ? name : null
+            );
+        } catch (DuplicateKeyException e) {
+            // new email is already used by another guest
+            emailConflicts.increment();
+            throw new BookingForUserExist(email);
         }
-        Optional<Guest> guest = guestDao.findById(bookingToGuest.get().getGuestId());
-        // same logic with a guest
-        if (guest.isEmpty()) {
-            throw new RuntimeException("Can't find guest by id %s".formatted(bookingToGuest.get().getGuestId()));
+        if (updated == 0) {
+            throw new BookingDoesNotExist(bookingId);
         }
-
         if (StringUtils.hasText(email)) {
-            guest.get().setEmail(email);
+            guestEmailIndex.add(email);
         }
-        if (StringUtils.hasText(name)) {
-            guest.get().setName(name);
-        }
-
-        guestDao.save(guest.get());
     }
 }
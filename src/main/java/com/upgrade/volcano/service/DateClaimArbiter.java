@@ -0,0 +1,113 @@
+package com.upgrade.volcano.service;
+
+import com.upgrade.volcano.exception.BookingForDatesExist;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Days which are being written right now. A write must claim all its days before it opens a transaction, so of two
+ * concurrent requests for the same day only one goes to the DB and the other one is rejected right away.
+ * Unique index of the booking table is still there as the last line of defence.
+ * Every campsite has its own ring of days, so the same days of different campsites don't compete.
+ */
+@Component
+public class DateClaimArbiter {
+
+    // booking starts at most a month ahead and is at most 3 days long, so days in flight always fit in the ring
+    static final int HORIZON_DAYS = 64;
+    private static final long FREE = 0;
+
+    private final AvailabilityIndex availabilityIndex;
+    // per campsite, slot of a day is epoch day modulo horizon, value is id of the claim which holds it
+    private final ConcurrentMap<Integer, AtomicLongArray> campsiteSlots = new ConcurrentHashMap<>();
+    private final AtomicLong claimIds = new AtomicLong();
+
+    public DateClaimArbiter(AvailabilityIndex availabilityIndex) {
+        this.availabilityIndex = availabilityIndex;
+    }
+
+    /**
+     * Claims days from start to end inclusive for a new booking (bookingId is null) or for moving an existing one.
+     * Claim must be closed after transaction is finished, no matter if it was committed or rolled back.
+     */
+    public DateClaim claim(int campsiteId, UUID bookingId, LocalDate startDate, LocalDate endDate) {
+        long first = startDate.toEpochDay();
+        long last = endDate.toEpochDay();
+        if (last - first >= HORIZON_DAYS) {
+            throw new IllegalArgumentException("Can't claim more than %d days".formatted(HORIZON_DAYS));
+        }
+
+        AtomicLongArray slots = campsiteSlots.computeIfAbsent(campsiteId, id -> new AtomicLongArray(HORIZON_DAYS));
+        long claimId = claimIds.incrementAndGet();
+        for (long day = first; day <= last; day++) {
+            if (!slots.compareAndSet(slot(day), FREE, claimId)) {
+                release(slots, claimId, first, day - 1);
+                throw bookingForDatesExist(slots, campsiteId, bookingId, startDate, endDate);
+            }
+        }
+
+        DateClaim claim = new DateClaim(slots, claimId, first, last);
+        // writes change the index after commit and only then close their claims, so days of every finished write are
+        // in the index already
+        List<LocalDate> booked = availabilityIndex.getDatesBookedByOthers(campsiteId, bookingId, startDate, endDate);
+        if (!booked.isEmpty()) {
+            claim.close();
+            throw new BookingForDatesExist(booked);
+        }
+        return claim;
+    }
+
+    private static void release(AtomicLongArray slots, long claimId, long first, long last) {
+        for (long day = first; day <= last; day++) {
+            slots.compareAndSet(slot(day), claimId, FREE);
+        }
+    }
+
+    // days claimed by other writes in flight and days already booked
+    private BookingForDatesExist bookingForDatesExist(AtomicLongArray slots, int campsiteId, UUID bookingId,
+                                                      LocalDate startDate, LocalDate endDate) {
+        List<LocalDate> booked = availabilityIndex.getDatesBookedByOthers(campsiteId, bookingId, startDate, endDate);
+        List<LocalDate> conflicts = new ArrayList<>();
+        startDate.datesUntil(endDate.plusDays(1))
+                .filter(d -> booked.contains(d) || slots.get(slot(d.toEpochDay())) != FREE)
+                .forEach(conflicts::add);
+        if (conflicts.isEmpty()) {
+            // other write has just finished
+            conflicts = startDate.datesUntil(endDate.plusDays(1)).collect(Collectors.toList());
+        }
+        return new BookingForDatesExist(conflicts);
+    }
+
+    private static int slot(long epochDay) {
+        return Math.floorMod(epochDay, HORIZON_DAYS);
+    }
+
+    public static final class DateClaim implements AutoCloseable {
+        private final AtomicLongArray slots;
+        private final long claimId;
+        private final long first;
+        private final long last;
+
+        private DateClaim(AtomicLongArray slots, long claimId, long first, long last) {
+            this.slots = slots;
+            this.claimId = claimId;
+            this.first = first;
+            this.last = last;
+        }
+
+        // only days which are still held by this claim are freed, so closing twice is harmless
+        @Override
+        public void close() {
+            release(slots, claimId, first, last);
+        }
+    }
+}
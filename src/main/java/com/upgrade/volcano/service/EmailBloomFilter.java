@@ -0,0 +1,97 @@
+package com.upgrade.volcano.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of emails, it answers "definitely not added" or "maybe added". Bits are only ever set, so adds and
+ * reads from many threads don't need a lock. Nothing can be removed from it.
+ */
+public final class EmailBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+
+    public EmailBloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Expected insertions must be positive and false positive rate in (0, 1)");
+        }
+        // optimal size and number of hashes for given insertions and rate
+        double optimalBits = -expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.words = new AtomicLongArray((int) Math.max(1, Math.ceil(optimalBits / Long.SIZE)));
+        this.bits = (long) words.length() * Long.SIZE;
+        this.hashes = (int) Math.max(1, Math.round((double) bits / expectedInsertions * Math.log(2)));
+    }
+
+    // filter of the same size and rate with bits saved before, see toLongArray
+    public static EmailBloomFilter of(long expectedInsertions, double falsePositiveRate, long[] words) {
+        EmailBloomFilter filter = new EmailBloomFilter(expectedInsertions, falsePositiveRate);
+        if (words.length != filter.words.length()) {
+            throw new IllegalArgumentException("Filter of %d insertions at %f has %d words, not %d"
+                    .formatted(expectedInsertions, falsePositiveRate, filter.words.length(), words.length));
+        }
+        for (int i = 0; i < words.length; i++) {
+            filter.words.set(i, words[i]);
+        }
+        return filter;
+    }
+
+    public void add(String email) {
+        long h1 = hash(email);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            // most bits of a repeated email are set already, reading is cheaper than writing
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+    }
+
+    public boolean mightContain(String email) {
+        long h1 = hash(email);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // adds which happen while copying may be there or not, as with any add racing with a read
+    public long[] toLongArray() {
+        long[] copy = new long[words.length()];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = words.get(i);
+        }
+        return copy;
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    // String.hashCode is 32 bits, at millions of emails its collisions alone would be noticeable, so FNV-1a 64
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    // murmur3 finalizer, spreads bits so that the second hash is independent enough from the first one
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
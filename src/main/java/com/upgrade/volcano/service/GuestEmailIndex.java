@@ -0,0 +1,96 @@
+package com.upgrade.volcano.service;
+
+import com.upgrade.volcano.snapshot.StateSnapshot;
+import com.upgrade.volcano.snapshot.StateSnapshotFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Optional;
+
+/**
+ * Emails of all guests as a bloom filter. Almost every booking comes with a new email, for it filter answers "no"
+ * and booking doesn't look into guest table at all. Only "maybe" is checked in the DB.
+ * Emails of cancelled bookings and changed emails stay in the filter until the next load, they only make more "maybe"
+ * answers. Unique email index is still the last check, so even a lost add can't let a second booking in.
+ */
+@Component
+public class GuestEmailIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(GuestEmailIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedGuests;
+    private final double falsePositiveRate;
+    private final ObjectProvider<StateSnapshotFile> snapshotFile;
+    private volatile EmailBloomFilter filter;
+
+    public GuestEmailIndex(JdbcTemplate jdbcTemplate, ObjectProvider<StateSnapshotFile> snapshotFile,
+                           @Value("${volcano.guest-email-index.expected-guests:1000000}") long expectedGuests,
+                           @Value("${volcano.guest-email-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotFile = snapshotFile;
+        this.expectedGuests = expectedGuests;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    @PostConstruct
+    public void init() {
+        Optional<StateSnapshot> snapshot = Optional.ofNullable(snapshotFile.getIfAvailable())
+                .flatMap(StateSnapshotFile::restore)
+                // filter of another size can't be used, bit positions depend on it
+                .filter(s -> s.expectedGuests() == expectedGuests && s.falsePositiveRate() == falsePositiveRate);
+        if (snapshot.isPresent()) {
+            restore(snapshot.get());
+        } else {
+            load();
+        }
+    }
+
+    public void load() {
+        EmailBloomFilter loaded = new EmailBloomFilter(expectedGuests, falsePositiveRate);
+        jdbcTemplate.query("select email from guest", rs -> {
+            loaded.add(rs.getString("email"));
+        });
+        filter = loaded;
+        log.info("Guest email index is loaded, {} KB", loaded.sizeInBytes() / 1024);
+    }
+
+    // guests of bookings inserted after the snapshot are added to its filter. changed emails are not there,
+    // as with a lost add they are stopped by unique index
+    private void restore(StateSnapshot snapshot) {
+        EmailBloomFilter restored = EmailBloomFilter.of(expectedGuests, falsePositiveRate, snapshot.emailFilter());
+        jdbcTemplate.query("select email from guest where id in (select l.guest_id from booking_to_guest l "
+                        + "join booking b on b.booking_id = l.booking_id where b.seq > ?)",
+                rs -> {
+                    restored.add(rs.getString("email"));
+                },
+                snapshot.lastSeq());
+        filter = restored;
+        log.info("Guest email index is restored from snapshot, {} KB", restored.sizeInBytes() / 1024);
+    }
+
+    public void add(String email) {
+        filter.add(email);
+    }
+
+    public boolean mightExist(String email) {
+        return filter.mightContain(email);
+    }
+
+    public EmailBloomFilter getFilter() {
+        return filter;
+    }
+
+    public long getExpectedGuests() {
+        return expectedGuests;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+}
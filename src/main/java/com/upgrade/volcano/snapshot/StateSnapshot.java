@@ -0,0 +1,17 @@
+package com.upgrade.volcano.snapshot;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Booked days from origin on and guest email filter as they were when snapshot was taken. lastSeq is the last insert
+ * into booking which is in the snapshot, rowCount and seqSum of the days are compared with the DB to find out if
+ * anything before it was changed since.
+ */
+public record StateSnapshot(LocalDate origin, long lastSeq, long seqSum, List<BookedDay> days,
+                            long expectedGuests, double falsePositiveRate, long[] emailFilter) {
+
+    public record BookedDay(int campsiteId, LocalDate date, UUID bookingId) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.upgrade.volcano.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Binary file with the last state snapshot. On start indexes take it instead of reading whole booking and guest tables,
+ * only rows inserted after the snapshot are read from the DB then.
+ * Snapshot is used only if rows it has seen are still the same in the DB. Cancel or date change deletes rows, so if
+ * any was done after the snapshot (instance crashed after it) indexes are loaded from the DB as without snapshot.
+ */
+@Component
+@ConditionalOnProperty(name = "volcano.snapshot.enabled", havingValue = "true")
+public class StateSnapshotFile {
+
+    private static final Logger log = LoggerFactory.getLogger(StateSnapshotFile.class);
+
+    // "VOLC"
+    private static final int MAGIC = 0x564f4c43;
+    private static final int FORMAT = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path path;
+    // both indexes are restored from the same snapshot, so file is read and checked once
+    private Optional<StateSnapshot> restored;
+
+    public StateSnapshotFile(JdbcTemplate jdbcTemplate, @Value("${volcano.snapshot.path}") Path path) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.path = path;
+    }
+
+    // snapshot which is still valid for the DB, empty if there is no such
+    public synchronized Optional<StateSnapshot> restore() {
+        if (restored == null) {
+            restored = read().filter(this::isCurrent);
+        }
+        return restored;
+    }
+
+    public void write(StateSnapshot snapshot) {
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            // written next to the old one and moved over it, so a crash while writing leaves the old snapshot
+            Path written = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(written)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT);
+                out.writeLong(snapshot.origin().toEpochDay());
+                out.writeLong(snapshot.lastSeq());
+                out.writeLong(snapshot.seqSum());
+                out.writeInt(snapshot.days().size());
+                for (StateSnapshot.BookedDay day : snapshot.days()) {
+                    out.writeInt(day.campsiteId());
+                    out.writeInt((int) day.date().toEpochDay());
+                    out.writeLong(day.bookingId().getMostSignificantBits());
+                    out.writeLong(day.bookingId().getLeastSignificantBits());
+                }
+                out.writeLong(snapshot.expectedGuests());
+                out.writeDouble(snapshot.falsePositiveRate());
+                out.writeInt(snapshot.emailFilter().length);
+                for (long word : snapshot.emailFilter()) {
+                    out.writeLong(word);
+                }
+            }
+            Files.move(written, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't write state snapshot to " + path, e);
+        }
+    }
+
+    private Optional<StateSnapshot> read() {
+        if (!Files.exists(path)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                log.warn("{} is not a state snapshot of this version, it is not used", path);
+                return Optional.empty();
+            }
+            LocalDate origin = LocalDate.ofEpochDay(in.readLong());
+            long lastSeq = in.readLong();
+            long seqSum = in.readLong();
+            int dayCount = in.readInt();
+            List<StateSnapshot.BookedDay> days = new ArrayList<>(dayCount);
+            for (int i = 0; i < dayCount; i++) {
+                days.add(new StateSnapshot.BookedDay(in.readInt(), LocalDate.ofEpochDay(in.readInt()),
+                        new UUID(in.readLong(), in.readLong())));
+            }
+            long expectedGuests = in.readLong();
+            double falsePositiveRate = in.readDouble();
+            long[] emailFilter = new long[in.readInt()];
+            for (int i = 0; i < emailFilter.length; i++) {
+                emailFilter[i] = in.readLong();
+            }
+            return Optional.of(new StateSnapshot(origin, lastSeq, seqSum, days, expectedGuests, falsePositiveRate, emailFilter));
+        } catch (IOException e) {
+            log.warn("Can't read state snapshot {}, it is not used: {}", path, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    // rows of the snapshot are compared by count and sum of their seq, one pass over seq index.
+    // a deleted row or a row which was not committed yet when snapshot was taken changes them
+    private boolean isCurrent(StateSnapshot snapshot) {
+        Map<String, Object> rows = jdbcTemplate.queryForMap(
+                "select count(*) as row_count, coalesce(sum(seq), 0) as seq_sum from booking where seq <= ? and date >= ?",
+                snapshot.lastSeq(), snapshot.origin());
+        boolean current = ((Number) rows.get("row_count")).longValue() == snapshot.days().size()
+                && ((Number) rows.get("seq_sum")).longValue() == snapshot.seqSum();
+        if (!current) {
+            log.info("Bookings were changed after state snapshot was taken, it is not used");
+        }
+        return current;
+    }
+}
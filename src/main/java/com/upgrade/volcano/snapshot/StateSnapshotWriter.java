@@ -0,0 +1,84 @@
+package com.upgrade.volcano.snapshot;
+
+import com.upgrade.volcano.service.GuestEmailIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes state snapshot every interval and on shutdown. Booked days are read from the DB in one query, not from the
+ * index, so snapshot and its seq are the same committed state.
+ */
+@Component
+@ConditionalOnProperty(name = "volcano.snapshot.enabled", havingValue = "true")
+public class StateSnapshotWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(StateSnapshotWriter.class);
+
+    private final StateSnapshotFile snapshotFile;
+    private final JdbcTemplate jdbcTemplate;
+    private final GuestEmailIndex guestEmailIndex;
+    private final ScheduledExecutorService worker;
+
+    public StateSnapshotWriter(StateSnapshotFile snapshotFile, JdbcTemplate jdbcTemplate, GuestEmailIndex guestEmailIndex,
+                               @Value("${volcano.snapshot.interval:5m}") Duration interval) {
+        this.snapshotFile = snapshotFile;
+        this.jdbcTemplate = jdbcTemplate;
+        this.guestEmailIndex = guestEmailIndex;
+        this.worker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "state-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        worker.scheduleWithFixedDelay(this::writeQuietly, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void write() {
+        long started = System.nanoTime();
+        LocalDate origin = LocalDate.now();
+        List<StateSnapshot.BookedDay> days = new ArrayList<>();
+        long[] seq = new long[2];
+        jdbcTemplate.query("select campsite_id, date, booking_id, seq from booking where date >= ?",
+                rs -> {
+                    days.add(new StateSnapshot.BookedDay(rs.getInt("campsite_id"), rs.getObject("date", LocalDate.class),
+                            rs.getObject("booking_id", UUID.class)));
+                    seq[0] = Math.max(seq[0], rs.getLong("seq"));
+                    seq[1] += rs.getLong("seq");
+                },
+                origin);
+        // email of a booking is added before its rows are inserted, so filter taken after the query has emails of
+        // all bookings above
+        snapshotFile.write(new StateSnapshot(origin, seq[0], seq[1], days, guestEmailIndex.getExpectedGuests(),
+                guestEmailIndex.getFalsePositiveRate(), guestEmailIndex.getFilter().toLongArray()));
+        log.info("State snapshot is written, {} booked days in {} ms", days.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    private void writeQuietly() {
+        try {
+            write();
+        } catch (RuntimeException e) {
+            // previous snapshot stays, it is only older
+            log.warn("Can't write state snapshot: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        worker.shutdownNow();
+        writeQuietly();
+    }
+}
@@ -0,0 +1,21 @@
+package com.upgrade.volcano.startup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Training run of the class data archive (mvn -Pstartup): application starts, gets ready and exits, JVM writes
+ * classes it has loaded into the archive on exit.
+ */
+@Component
+@ConditionalOnProperty(name = "volcano.startup.exit-when-ready", havingValue = "true")
+public class ExitWhenReady {
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
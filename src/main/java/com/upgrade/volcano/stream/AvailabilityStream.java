@@ -0,0 +1,189 @@
+package com.upgrade.volcano.stream;
+
+import com.upgrade.volcano.dto.AvailabilitySnapshot;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.service.AvailabilityChangedEvent;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-sent events with availability of changed days. Subscribers are async requests, so idle subscriber is just
+ * an open connection without a thread. Changes are sent by one fan-out thread, writer only hands the event over to it.
+ * Every event is encoded once and the same bytes are put to a bounded queue of every subscriber of the changed
+ * campsite, queues are written by a fixed pool of sender threads, so the number of threads doesn't grow with
+ * subscribers. Subscriber takes a sender only while it has messages and gives it back after what was queued, a
+ * stalled write holds one sender until the container's write timeout. Subscriber whose queue is full is dropped and
+ * reconnects as after timeout.
+ */
+@Component
+public class AvailabilityStream {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityStream.class);
+
+    // comment line, response headers are written only with the first bytes, so client sees the stream open at once
+    private static final byte[] OPENED = ":opened\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final AvailabilityIndex availabilityIndex;
+    private final long timeoutMillis;
+    private final int queueSize;
+    // by campsite, subscriber gets changes only of the campsite it watches
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService fanOut = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "availability-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders;
+
+    public AvailabilityStream(AvailabilityIndex availabilityIndex,
+                              @Value("${volcano.stream.timeout}") Duration timeout,
+                              @Value("${volcano.stream.subscriber-queue-size}") int queueSize,
+                              @Value("${volcano.stream.senders}") int senders) {
+        this.availabilityIndex = availabilityIndex;
+        this.timeoutMillis = timeout.toMillis();
+        this.queueSize = queueSize;
+        // task queue of the pool is bounded by subscribers, each of them is in it at most once
+        this.senders = Executors.newFixedThreadPool(senders, r -> {
+            Thread thread = new Thread(r, "availability-stream-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // campsite must exist, otherwise any id would get its own set of subscribers
+    public ResponseBodyEmitter subscribe(int campsiteId) throws IOException {
+        Set<Subscriber> subscribers = this.subscribers.computeIfAbsent(campsiteId, id -> ConcurrentHashMap.newKeySet());
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMillis);
+        Subscriber subscriber = new Subscriber(emitter, subscribers);
+        // after timeout client reconnects (EventSource does it by itself) and rereads availability
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        emitter.send(OPENED, MediaType.TEXT_EVENT_STREAM);
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    @EventListener
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        // subscribers don't cost anything if nobody listens
+        Set<Subscriber> subscribers = this.subscribers.get(event.campsiteId());
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        fanOut.execute(() -> send(subscribers, event.campsiteId(), event.ranges()));
+    }
+
+    private void send(Set<Subscriber> subscribers, int campsiteId, List<DateRange> ranges) {
+        // state is taken at the moment of sending, so if several writes are queued clients still get the latest one
+        byte[] message = encode(availabilityIndex.getSnapshot(campsiteId, ranges));
+        subscribers.forEach(subscriber -> subscriber.offer(message));
+    }
+
+    // id:<version>\nevent:availability\ndata:<json>\n\n
+    private static byte[] encode(AvailabilitySnapshot changes) {
+        ByteArrayOutputStream message = new ByteArrayOutputStream(changes.json().length + 64);
+        message.writeBytes("id:%d\nevent:availability\ndata:".formatted(changes.version()).getBytes(StandardCharsets.US_ASCII));
+        message.writeBytes(changes.json());
+        message.writeBytes("\n\n".getBytes(StandardCharsets.US_ASCII));
+        return message.toByteArray();
+    }
+
+    @PreDestroy
+    public void close() {
+        fanOut.shutdownNow();
+        senders.shutdownNow();
+        subscribers.values().forEach(s -> s.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    // messages of one subscriber are written in order by at most one sender at a time, a turn of a sender is what
+    // was queued when it started, then the subscriber goes to the end of the pool's queue
+    private final class Subscriber implements Runnable {
+        private final ResponseBodyEmitter emitter;
+        private final Set<Subscriber> campsiteSubscribers;
+        private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(queueSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean dropped;
+
+        private Subscriber(ResponseBodyEmitter emitter, Set<Subscriber> campsiteSubscribers) {
+            this.emitter = emitter;
+            this.campsiteSubscribers = campsiteSubscribers;
+        }
+
+        // called by fan-out thread, it never waits for the client
+        private void offer(byte[] message) {
+            if (dropped) {
+                return;
+            }
+            if (!queue.offer(message)) {
+                log.debug("Availability subscriber is {} messages behind, it is dropped", queueSize);
+                dropped = true;
+                queue.clear();
+                campsiteSubscribers.remove(this);
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                senders.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                for (int turn = queue.size(); turn > 0 && !dropped; turn--) {
+                    byte[] message = queue.poll();
+                    if (message == null) {
+                        // cleared by drop
+                        break;
+                    }
+                    emitter.send(message, MediaType.TEXT_EVENT_STREAM);
+                }
+                if (dropped) {
+                    // client reconnects and rereads availability, as after timeout
+                    emitter.complete();
+                    return;
+                }
+            } catch (Exception e) {
+                // client is gone, container will complete the request by itself
+                log.debug("Can't send availability to subscriber: {}", e.getMessage());
+                dropped = true;
+                campsiteSubscribers.remove(this);
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            // rest of the queue, or message offered after the turn, but before scheduled was reset
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.upgrade.volcano.validation;
+
+import com.upgrade.volcano.dto.BookingRequest;
+import com.upgrade.volcano.dto.UpdateBookingRequest;
+import com.upgrade.volcano.exception.ClientValidationException;
+import com.upgrade.volcano.model.DateRange;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Business rules of requests which bean validation can't express. Servlet and reactive controllers both use it,
+ * so both variants of the API answer with the same errors.
+ */
+public final class BookingRequestValidator {
+
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    private BookingRequestValidator() {
+    }
+
+    // no dates means default window
+    public static DateRange availabilityWindow(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null && endDate == null) {
+            return DateRange.defaultWindow();
+        }
+
+        if (oneDayIsNullAndOtherIsNot(startDate, endDate)) {
+            throw new ClientValidationException("Start date and end date must be set together");
+        }
+
+        if (startDate.isAfter(endDate)) {
+            throw new ClientValidationException("Start date is later than end date");
+        }
+
+        if (startDate.isBefore(LocalDate.now())) {
+            throw new ClientValidationException("Start date is in the past");
+        }
+        return new DateRange(startDate, endDate);
+    }
+
+    public static void validateBookingRequest(BookingRequest r) {
+        validateEndDateLaterStartDate(r.getStartDate(), r.getEndDate());
+        bookingIsMoreThanThreeDays(r.getStartDate(), r.getEndDate());
+        bookingIsMoreThan1MonthAway(r.getStartDate());
+    }
+
+    public static void validateUpdateRequest(UpdateBookingRequest r) {
+        if (r.getStartDate() != null || r.getEndDate() != null) {
+            // if user wants to update date two dates must be provided
+            validateTwoDatesProvided(r.getStartDate(), r.getEndDate());
+            validateEndDateLaterStartDate(r.getStartDate(), r.getEndDate());
+            bookingIsMoreThanThreeDays(r.getStartDate(), r.getEndDate());
+            bookingIsMoreThan1MonthAway(r.getStartDate());
+        }
+    }
+
+    // Idempotency-Key header is optional, but if it is sent it must be usable as a key
+    public static void validateIdempotencyKey(String key) {
+        if (key != null && (key.isBlank() || key.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new ClientValidationException(
+                    "Idempotency key must be from 1 to %d characters".formatted(MAX_IDEMPOTENCY_KEY_LENGTH));
+        }
+    }
+
+    public static UUID bookingId(String id) {
+        try {
+            return UUID.fromString(id);
+        } catch (Exception e) {
+            throw new ClientValidationException("Can't convert %s to uuid: %s".formatted(id, e.getMessage()));
+        }
+    }
+
+    private static boolean oneDayIsNullAndOtherIsNot(LocalDate startDate, LocalDate endDate) {
+        return (startDate == null && endDate != null) || (startDate != null && endDate == null);
+    }
+
+    private static void validateEndDateLaterStartDate(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new ClientValidationException("Start date is later than end date");
+        }
+    }
+
+    private static void bookingIsMoreThanThreeDays(LocalDate startDate, LocalDate endDate) {
+        if (ChronoUnit.DAYS.between(startDate, endDate) > 3) {
+            throw new ClientValidationException("Booking for more than 3 days are not allowed");
+        }
+    }
+
+    private static void bookingIsMoreThan1MonthAway(LocalDate startDate) {
+        if (ChronoUnit.MONTHS.between(LocalDate.now(), startDate) > 0) {
+            throw new ClientValidationException("No bookings more than 1 month in advance");
+        }
+    }
+
+    private static void validateTwoDatesProvided(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null) {
+            throw new ClientValidationException("Start date must be provided for booking date update");
+        }
+        if (endDate == null) {
+            throw new ClientValidationException("End date must be provided for booking date update");
+        }
+    }
+}
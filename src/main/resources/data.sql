@@ -1,25 +1,63 @@
-create table booking
+-- script runs on every start, with a file DB (durable profile) everything it creates is there already
+create table if not exists campsite
 (
-    id         uuid default random_uuid() primary key,
-    date       date not null,
-    booking_id uuid not null
+    id   int primary key,
+    name varchar not null
+);
+
+-- the only campsite before there were many, requests without campsite are for it
+merge into campsite(id, name) key (id) values (1, 'Volcano');
+
+-- order of inserts, state snapshot remembers the last one and on start reads only rows after it
+create sequence if not exists booking_seq;
+
+create table if not exists booking
+(
+    id          uuid default random_uuid() primary key,
+    campsite_id int  default 1 not null,
+    date        date not null,
+    booking_id  uuid not null,
+    seq         bigint default booking_seq.nextval not null
 );
 
-create unique index unique_booking_date on booking(date);
+-- day is unique per campsite, so bookings of different campsites don't meet on the same index entries
+create unique index if not exists unique_booking_date on booking(campsite_id, date);
+create index if not exists booking_seq_index on booking(seq);
 
-create table guest
+create table if not exists guest
 (
     id uuid default random_uuid() primary key,
     email varchar not null unique,
     name varchar not null
 );
 
-create table booking_to_guest
+create table if not exists booking_to_guest
 (
     id         uuid default random_uuid() primary key,
     booking_id uuid not null,
     guest_id   uuid not null,
 --     foreign key (booking_id) references booking(booking_id),
 --     this should be enabled, but it turned out that h2 creates unique index when you create foreign key
-    foreign key (guest_id) references guest(id)
-);
\ No newline at end of file
+    -- link is removed together with the guest, so cancel is one delete for guest and one for booking days
+    foreign key (guest_id) references guest(id) on delete cascade
+);
+-- used only with volcano.idempotency.store=jdbc, booking_id is null while the first request is booking
+create table if not exists idempotency_key
+(
+    idempotency_key varchar(255) primary key,
+    fingerprint     varchar   not null,
+    booking_id      uuid,
+    created_at      timestamp not null
+);
+
+-- used only with volcano.cluster.bus=jdbc, log of committed availability changes which other instances poll.
+-- id is the cluster wide version of a change, rows older than retention are deleted by pollers
+create table if not exists availability_change
+(
+    id          bigint auto_increment primary key,
+    node        varchar   not null,
+    campsite_id int       not null,
+    start_date  date      not null,
+    end_date    date      not null,
+    changed_at  timestamp default localtimestamp not null
+);
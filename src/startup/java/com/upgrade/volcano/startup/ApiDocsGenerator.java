@@ -0,0 +1,46 @@
+package com.upgrade.volcano.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.upgrade.volcano.VolcanoApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Starts the application with springfox on, takes swagger spec from /v2/api-docs and writes it into classes, so it
+ * goes into the jar and is served by StaticApiDocsController without scanning controllers on every start.
+ */
+public class ApiDocsGenerator {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path output = Path.of(System.getProperty("startup.api-docs", "target/classes/api-docs.json"));
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VolcanoApplication.class)
+                .logStartupInfo(false)
+                .run("--server.port=0", "--springfox.documentation.enabled=true", "--logging.level.root=WARN")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:%d/v2/api-docs".formatted(port))).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Swagger spec is not available, status " + response.statusCode());
+            }
+            ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            ObjectNode spec = (ObjectNode) objectMapper.readTree(response.body());
+            // random port of this run, without host clients use the one they loaded the spec from
+            spec.remove("host");
+            Files.createDirectories(output.toAbsolutePath().getParent());
+            objectMapper.writeValue(output.toFile(), spec);
+            System.out.printf("Swagger spec is written to %s%n", output);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.upgrade.volcano.startup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the packaged application as a new JVM several times per variant and measures time from process start until
+ * the first GET /booking is answered with 200. Variants are the plain jar, fast-start profile on thin jar and
+ * dependencies, and the same with class data archive made by the build. Results are written as json to startup.output.
+ */
+public class StartupBenchmark {
+
+    public static final String DEFAULT = "default";
+    public static final String FAST_START = "fast-start";
+    public static final String FAST_START_CDS = "fast-start-cds";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private final Path target = Path.of(System.getProperty("startup.target", "target"));
+    private final Path output = Path.of(System.getProperty("startup.output", "target/startup"));
+
+    public static void main(String[] args) throws Exception {
+        List<String> variants = Arrays.stream(System.getProperty("startup.variants",
+                String.join(",", DEFAULT, FAST_START, FAST_START_CDS)).split(",")).map(String::trim).toList();
+        int runs = Integer.getInteger("startup.runs", 5);
+
+        StartupBenchmark benchmark = new StartupBenchmark();
+        Files.createDirectories(benchmark.output);
+        List<StartupReport> reports = new ArrayList<>();
+        for (String variant : variants) {
+            List<Long> millis = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                millis.add(benchmark.timeToFirstRequest(variant, run));
+            }
+            reports.add(StartupReport.of(variant, millis));
+        }
+
+        System.out.printf("%n%-16s %9s %9s %9s  %s%n", "variant", "min ms", "median ms", "max ms", "runs");
+        reports.forEach(r -> System.out.printf("%-16s %9d %9d %9d  %s%n", r.variant(), r.minMillis(), r.medianMillis(),
+                r.maxMillis(), r.millis()));
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(benchmark.output.resolve("startup.json").toFile(), reports);
+    }
+
+    private long timeToFirstRequest(String variant, int run) throws IOException, InterruptedException {
+        int port = freePort();
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command(variant, port))
+                .redirectErrorStream(true)
+                .redirectOutput(output.resolve("%s-%d.log".formatted(variant, run)).toFile())
+                .start();
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:%d/booking".formatted(port))).GET().build();
+            while (System.nanoTime() - started < TIMEOUT.toNanos()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("%s exited with %d, see its log in %s".formatted(variant, process.exitValue(), output));
+                }
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                    }
+                } catch (IOException e) {
+                    // not listening yet
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("%s didn't answer in %s".formatted(variant, TIMEOUT));
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private List<String> command(String variant, int port) {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        // archive is used only with the same classpath as in its training run
+        String classpath = System.getProperty("startup.classpath", target.resolve("volcano-booking.jar.original")
+                + System.getProperty("path.separator") + target.resolve("lib").resolve("*"));
+        List<String> command = new ArrayList<>(List.of(java));
+        switch (variant) {
+            case DEFAULT -> command.addAll(List.of("-jar", target.resolve("volcano-booking.jar").toString()));
+            case FAST_START -> command.addAll(List.of("-cp", classpath, "com.upgrade.volcano.VolcanoApplication",
+                    "--spring.profiles.active=fast-start"));
+            case FAST_START_CDS -> command.addAll(List.of("-XX:SharedArchiveFile=" + target.resolve("volcano.jsa"),
+                    "-cp", classpath, "com.upgrade.volcano.VolcanoApplication", "--spring.profiles.active=fast-start"));
+            default -> throw new IllegalArgumentException("Unknown variant " + variant);
+        }
+        command.add("--server.port=" + port);
+        return command;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    public record StartupReport(String variant, List<Long> millis, long minMillis, long medianMillis, long maxMillis) {
+
+        static StartupReport of(String variant, List<Long> millis) {
+            List<Long> sorted = millis.stream().sorted().toList();
+            return new StartupReport(variant, millis, sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+        }
+    }
+}
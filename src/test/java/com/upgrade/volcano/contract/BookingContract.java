@@ -0,0 +1,255 @@
+package com.upgrade.volcano.contract;
+
+import com.upgrade.volcano.dto.AvailabilityResponse;
+import com.upgrade.volcano.dto.BookingRequest;
+import com.upgrade.volcano.dto.BookingResponse;
+import com.upgrade.volcano.dto.ErrorResponse;
+import com.upgrade.volcano.dto.UpdateBookingRequest;
+import com.upgrade.volcano.exception.ErrorCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Http contract of /booking. It is run against every variant of the API (servlet and reactive), so clients can be
+ * moved between them. Scenarios are the same as in integration suites, but everything is checked only through
+ * the API, state behind it is checked by variant's own suites.
+ */
+public abstract class BookingContract {
+
+    private final LocalDate today = LocalDate.now();
+
+    protected abstract WebTestClient client();
+
+    // every test starts without bookings
+    protected abstract void deleteAllBookings();
+
+    @BeforeEach
+    public void cleanup() {
+        deleteAllBookings();
+    }
+
+    @Test
+    public void fullBookingCycle() {
+        LocalDate startDate = today.plusDays(10);
+        LocalDate endDate = today.plusDays(12);
+        assertAvailability(startDate, endDate.plusWeeks(1), List.of());
+
+        UUID bookingId = book(startDate, endDate, "test", "test@email.com");
+        assertAvailability(startDate, endDate.plusWeeks(1), dates(startDate, endDate));
+
+        update(bookingId, new UpdateBookingRequest(startDate.plusWeeks(1), endDate.plusWeeks(1), "testnew", "testnew@email.com"))
+                .expectStatus().isOk();
+        assertAvailability(startDate, endDate.plusWeeks(1), dates(startDate.plusWeeks(1), endDate.plusWeeks(1)));
+
+        cancel(bookingId).expectStatus().isOk();
+        assertAvailability(startDate, endDate.plusWeeks(1), List.of());
+        // guest was deleted with the booking, so the email is free too
+        book(startDate, endDate, "testnew", "testnew@email.com");
+    }
+
+    @Test
+    public void defaultAvailabilityWindowIsMonth() {
+        book(today.plusDays(1), today.plusDays(2), "test", "test@email.com");
+
+        Map<?, ?> availability = client().get().uri("/booking")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Map.class).returnResult().getResponseBody();
+        Assertions.assertEquals(today.plusMonths(1).toEpochDay() - today.toEpochDay() + 1,
+                ((Map<?, ?>) availability.get("availability")).size());
+    }
+
+    @Test
+    public void bookAfterCancellation() {
+        UUID bookingId = book(today.plusDays(10), today.plusDays(12), "test", "test@email.com");
+        cancel(bookingId).expectStatus().isOk();
+        book(today.plusDays(10), today.plusDays(12), "test", "test@email.com");
+    }
+
+    @Test
+    public void bookSameDates() {
+        book(today.plusDays(10), today.plusDays(12), "test", "test@email.com");
+
+        assertError(post(new BookingRequest(today.plusDays(10), today.plusDays(12), "test", "test1@email.com")),
+                HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_FOR_DATE_EXIST);
+        assertError(post(new BookingRequest(today.plusDays(11), today.plusDays(13), "test", "test2@email.com")),
+                HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_FOR_DATE_EXIST);
+    }
+
+    @Test
+    public void bookSameEmail() {
+        book(today.plusDays(10), today.plusDays(12), "test", "test@email.com");
+
+        assertError(post(new BookingRequest(today.plusDays(17), today.plusDays(19), "test", "test@email.com")),
+                HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_FOR_USER_EXIST);
+        // failed booking didn't take the dates
+        assertAvailability(today.plusDays(17), today.plusDays(19), List.of());
+    }
+
+    @Test
+    public void bookDatesFreedByUpdate() {
+        UUID bookingId = book(today.plusDays(10), today.plusDays(12), "test", "test@email.com");
+        update(bookingId, new UpdateBookingRequest(today.plusDays(13), today.plusDays(15), null, null))
+                .expectStatus().isOk();
+
+        book(today.plusDays(10), today.plusDays(12), "test", "test1@email.com");
+        assertAvailability(today.plusDays(10), today.plusDays(15), dates(today.plusDays(10), today.plusDays(15)));
+    }
+
+    @Test
+    public void bookEmailFreedByUpdate() {
+        UUID bookingId = book(today.plusDays(10), today.plusDays(12), "test", "test@email.com");
+        update(bookingId, new UpdateBookingRequest(null, null, null, "testnew@email.com")).expectStatus().isOk();
+
+        book(today.plusDays(13), today.plusDays(15), "test", "test@email.com");
+        assertError(post(new BookingRequest(today.plusDays(17), today.plusDays(19), "test", "testnew@email.com")),
+                HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_FOR_USER_EXIST);
+    }
+
+    @Test
+    public void updateToBookedDates() {
+        book(today.plusDays(10), today.plusDays(12), "test", "test@email.com");
+        UUID secondBookingId = book(today.plusDays(13), today.plusDays(15), "test", "test1@email.com");
+
+        ErrorResponse error = assertError(
+                update(secondBookingId, new UpdateBookingRequest(today.plusDays(12), today.plusDays(14), null, null)),
+                HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_FOR_DATE_EXIST);
+        Assertions.assertEquals("There is another Booking for dates %s".formatted(today.plusDays(12)), error.message());
+        // second booking kept its dates
+        assertAvailability(today.plusDays(10), today.plusDays(15), dates(today.plusDays(10), today.plusDays(15)));
+    }
+
+    @Test
+    public void updateToEmailOfAnotherGuest() {
+        book(today.plusDays(10), today.plusDays(12), "test", "test@email.com");
+        UUID secondBookingId = book(today.plusDays(13), today.plusDays(15), "test", "test1@email.com");
+
+        assertError(update(secondBookingId, new UpdateBookingRequest(null, null, null, "test@email.com")),
+                HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_FOR_USER_EXIST);
+    }
+
+    @Test
+    public void cancelAndUpdateMissingBooking() {
+        UUID bookingId = UUID.randomUUID();
+
+        assertError(cancel(bookingId), HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_DOES_NOT_EXIST);
+        assertError(update(bookingId, new UpdateBookingRequest(null, null, "name", null)),
+                HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_DOES_NOT_EXIST);
+        assertError(update(bookingId, new UpdateBookingRequest(today.plusDays(2), today.plusDays(3), null, null)),
+                HttpStatus.NOT_ACCEPTABLE, ErrorCode.BOOKING_DOES_NOT_EXIST);
+    }
+
+    @Test
+    public void simultaneousBooking() {
+        CompletableFuture<HttpStatus> first = CompletableFuture.supplyAsync(() -> post(
+                new BookingRequest(today.plusDays(1), today.plusDays(2), "name", "email@email.com"))
+                .returnResult(String.class).getStatus());
+        CompletableFuture<HttpStatus> second = CompletableFuture.supplyAsync(() -> post(
+                new BookingRequest(today.plusDays(1), today.plusDays(2), "name2", "email2@email.com"))
+                .returnResult(String.class).getStatus());
+
+        List<HttpStatus> statuses = Stream.of(first, second).map(CompletableFuture::join).collect(Collectors.toList());
+        Assertions.assertTrue(statuses.contains(HttpStatus.OK));
+        Assertions.assertTrue(statuses.contains(HttpStatus.NOT_ACCEPTABLE));
+    }
+
+    @Test
+    public void bookingValidation() {
+        assertValidationError(post(new BookingRequest(today.plusDays(3), today.plusDays(2), "name", "email@email.com")),
+                "Start date is later than end date");
+        assertValidationError(post(new BookingRequest(today.minusDays(1), today.plusDays(1), "name", "email@email.com")),
+                "startDate: must be a future date");
+        assertValidationError(post(new BookingRequest(today, today.plusDays(2), "name", "email@email.com")),
+                "startDate: must be a future date");
+        assertValidationError(post(new BookingRequest(today.plusDays(3), today.plusDays(7), "name", "email@email.com")),
+                "Booking for more than 3 days are not allowed");
+        assertValidationError(post(new BookingRequest(today.plusMonths(1).plusDays(1), today.plusMonths(1).plusDays(2), "name", "email@email.com")),
+                "No bookings more than 1 month in advance");
+    }
+
+    @Test
+    public void updateValidation() {
+        assertValidationError(update(UUID.randomUUID(), new UpdateBookingRequest(today.plusDays(3), null, null, null)),
+                "End date must be provided for booking date update");
+        assertValidationError(update(UUID.randomUUID(), new UpdateBookingRequest(null, today.plusDays(3), null, null)),
+                "Start date must be provided for booking date update");
+        assertError(client().delete().uri("/booking/not-uuid").exchange(), HttpStatus.BAD_REQUEST, ErrorCode.VALIDATION_ERROR);
+    }
+
+    @Test
+    public void availabilityValidation() {
+        assertValidationError(availability(today.plusDays(3), today.plusDays(2)), "Start date is later than end date");
+        assertValidationError(availability(today.minusDays(5), today.plusDays(2)), "Start date is in the past");
+        assertValidationError(availability(today.plusDays(5), null), "Start date and end date must be set together");
+        assertValidationError(availability(null, today.plusDays(5)), "Start date and end date must be set together");
+    }
+
+    private UUID book(LocalDate startDate, LocalDate endDate, String name, String email) {
+        BookingResponse response = post(new BookingRequest(startDate, endDate, name, email))
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(BookingResponse.class).returnResult().getResponseBody();
+        Assertions.assertNotNull(response.bookingId());
+        return response.bookingId();
+    }
+
+    private WebTestClient.ResponseSpec post(BookingRequest request) {
+        return client().post().uri("/booking").contentType(MediaType.APPLICATION_JSON).bodyValue(request).exchange();
+    }
+
+    private WebTestClient.ResponseSpec update(UUID bookingId, UpdateBookingRequest request) {
+        return client().put().uri("/booking/" + bookingId).contentType(MediaType.APPLICATION_JSON).bodyValue(request).exchange();
+    }
+
+    private WebTestClient.ResponseSpec cancel(UUID bookingId) {
+        return client().delete().uri("/booking/" + bookingId).exchange();
+    }
+
+    private WebTestClient.ResponseSpec availability(LocalDate startDate, LocalDate endDate) {
+        return client().get().uri(b -> b.path("/booking")
+                        .queryParam("startDate", startDate != null ? startDate.toString() : "")
+                        .queryParam("endDate", endDate != null ? endDate.toString() : "")
+                        .build())
+                .exchange();
+    }
+
+    private void assertAvailability(LocalDate startDate, LocalDate endDate, List<LocalDate> bookedDates) {
+        Map<LocalDate, Boolean> expected = new AvailabilityResponse(bookedDates, startDate, endDate).getAvailability();
+        String expectedJson = expected.entrySet().stream()
+                .map(e -> "\"%s\":%s".formatted(e.getKey(), e.getValue()))
+                .collect(Collectors.joining(",", "{\"availability\":{", "}}"));
+        availability(startDate, endDate)
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody().json(expectedJson);
+    }
+
+    private void assertValidationError(WebTestClient.ResponseSpec response, String message) {
+        Assertions.assertEquals(message, assertError(response, HttpStatus.BAD_REQUEST, ErrorCode.VALIDATION_ERROR).message());
+    }
+
+    private ErrorResponse assertError(WebTestClient.ResponseSpec response, HttpStatus status, ErrorCode code) {
+        ErrorResponse error = response
+                .expectStatus().isEqualTo(status)
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody(ErrorResponse.class).returnResult().getResponseBody();
+        Assertions.assertEquals(code, error.code());
+        return error;
+    }
+
+    private static List<LocalDate> dates(LocalDate startDate, LocalDate endDate) {
+        return startDate.datesUntil(endDate.plusDays(1)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,123 @@
+package com.upgrade.volcano.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.volcano.dto.AvailabilityBatchRequest;
+import com.upgrade.volcano.dto.AvailabilityResponse;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AvailabilityBatchTestSuite {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+    }
+
+    @Test
+    public void allWindowsAreAnsweredInOneResponse() throws Exception {
+        bookingService.book(Campsite.DEFAULT_ID, today.plusDays(3), today.plusDays(4), "batch@email.com", "batch");
+        bookingService.book(Campsite.DEFAULT_ID, today.plusDays(20), today.plusDays(20), "other@email.com", "other");
+
+        // overlapping windows and a gap between them, days of the gap are not in response
+        DateRange first = new DateRange(today.plusDays(1), today.plusDays(5));
+        DateRange second = new DateRange(today.plusDays(4), today.plusDays(7));
+        DateRange weekend = new DateRange(today.plusDays(19), today.plusDays(21));
+
+        List<LocalDate> booked = List.of(today.plusDays(3), today.plusDays(4), today.plusDays(20));
+        Map<LocalDate, Boolean> expected = Stream.of(first, second, weekend)
+                .flatMap(w -> w.startDate().datesUntil(w.endDate().plusDays(1)))
+                .distinct()
+                .collect(Collectors.toMap(d -> d, d -> !booked.contains(d)));
+
+        batch(first, second, weekend)
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().json(objectMapper.writeValueAsString(Map.of("availability", expected)), true));
+    }
+
+    @Test
+    public void windowWithoutDatesIsDefaultOne() throws Exception {
+        DateRange defaultWindow = DateRange.defaultWindow();
+        var expected = new AvailabilityResponse(Collections.emptyList(), defaultWindow.startDate(), defaultWindow.endDate());
+
+        batch(new DateRange(null, null))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(expected), true));
+    }
+
+    @Test
+    public void windowsAreValidated() throws Exception {
+        batch().andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"));
+
+        List<DateRange> tooMany = new ArrayList<>();
+        for (int i = 0; i <= AvailabilityBatchRequest.MAX_WINDOWS; i++) {
+            tooMany.add(new DateRange(today.plusDays(i), today.plusDays(i)));
+        }
+        batch(tooMany.toArray(DateRange[]::new))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"));
+
+        batch(new DateRange(today.plusDays(1), today.plusDays(2)), new DateRange(today.plusDays(5), today.plusDays(3)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Start date is later than end date"));
+
+        batch(new DateRange(today.minusDays(1), today.plusDays(3)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Start date is in the past"));
+    }
+
+    private ResultActions batch(DateRange... windows) throws Exception {
+        return mockMvc.perform(post("/booking/availability/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new AvailabilityBatchRequest(null, List.of(windows)))));
+    }
+}
@@ -0,0 +1,147 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.cache.AvailabilityKey;
+import com.upgrade.volcano.dto.AvailabilitySnapshot;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AvailabilityCacheEvictionTestSuite {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    private final LocalDate today = LocalDate.now();
+    // three windows which don't overlap with each other
+    private final DateRange firstWeek = new DateRange(today.plusDays(1), today.plusDays(7));
+    private final DateRange secondWeek = new DateRange(today.plusDays(8), today.plusDays(14));
+    private final DateRange thirdWeek = new DateRange(today.plusDays(15), today.plusDays(21));
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+        cache().clear();
+    }
+
+    @Test
+    public void bookEvictsOnlyOverlappingWindows() throws Exception {
+        warmUp(firstWeek, secondWeek, thirdWeek);
+
+        bookingService.book(Campsite.DEFAULT_ID, today.plusDays(9), today.plusDays(10), "cache@email.com", "cache");
+
+        assertWarm(firstWeek, thirdWeek);
+        assertEvicted(secondWeek);
+    }
+
+    @Test
+    public void updateEvictsOldAndNewDates() throws Exception {
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, today.plusDays(2), today.plusDays(3), "cache@email.com", "cache");
+        warmUp(firstWeek, secondWeek, thirdWeek);
+
+        bookingService.update(bookingId, today.plusDays(16), today.plusDays(17), null, null);
+
+        assertWarm(secondWeek);
+        assertEvicted(firstWeek, thirdWeek);
+    }
+
+    @Test
+    public void guestUpdateDoesNotEvictAnything() throws Exception {
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, today.plusDays(2), today.plusDays(3), "cache@email.com", "cache");
+        warmUp(firstWeek, secondWeek, thirdWeek);
+
+        bookingService.update(bookingId, null, null, null, "new name");
+
+        assertWarm(firstWeek, secondWeek, thirdWeek);
+    }
+
+    @Test
+    public void cancelEvictsOnlyOverlappingWindows() throws Exception {
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, today.plusDays(20), today.plusDays(21), "cache@email.com", "cache");
+        warmUp(firstWeek, secondWeek, thirdWeek);
+
+        bookingService.cancel(bookingId);
+
+        assertWarm(firstWeek, secondWeek);
+        assertEvicted(thirdWeek);
+    }
+
+    @Test
+    public void windowCachedAfterEvictionOfWriteIsRebuilt() throws Exception {
+        // cache miss which took its snapshot before the booking and put it to the cache after the booking evicted it
+        AvailabilitySnapshot stale = availabilityIndex.getSnapshot(Campsite.DEFAULT_ID, secondWeek.startDate(), secondWeek.endDate());
+        bookingService.book(Campsite.DEFAULT_ID, today.plusDays(9), today.plusDays(10), "cache@email.com", "cache");
+        AvailabilityKey key = new AvailabilityKey(Campsite.DEFAULT_ID, secondWeek);
+        cache().put(key, stale);
+
+        mockMvc.perform(get("/booking")
+                .param("startDate", secondWeek.startDate().toString())
+                .param("endDate", secondWeek.endDate().toString())
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availability['%s']".formatted(today.plusDays(9))).value(false));
+        Assertions.assertTrue(((AvailabilitySnapshot) cache().get(key).get()).version() > stale.version());
+    }
+
+    private void warmUp(DateRange... windows) throws Exception {
+        for (DateRange window : windows) {
+            mockMvc.perform(get("/booking")
+                    .param("startDate", window.startDate().toString())
+                    .param("endDate", window.endDate().toString())
+            ).andExpect(status().isOk());
+        }
+        assertWarm(windows);
+    }
+
+    private void assertWarm(DateRange... windows) {
+        for (DateRange window : windows) {
+            Assertions.assertNotNull(cache().get(new AvailabilityKey(Campsite.DEFAULT_ID, window)), "window %s must stay in cache".formatted(window));
+        }
+    }
+
+    private void assertEvicted(DateRange... windows) {
+        for (DateRange window : windows) {
+            Assertions.assertNull(cache().get(new AvailabilityKey(Campsite.DEFAULT_ID, window)), "window %s must be evicted".formatted(window));
+        }
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache("availability");
+    }
+}
@@ -0,0 +1,84 @@
+package com.upgrade.volcano.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.upgrade.volcano.cache.AvailabilityKey;
+import com.upgrade.volcano.dto.CacheStatsResponse;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AvailabilityCacheStatsTestSuite {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void cleanup() {
+        cacheManager.getCache("availability").clear();
+    }
+
+    @Test
+    public void defaultWindowSharesEntryWithExplicitDates() throws Exception {
+        CacheStatsResponse before = stats();
+
+        mockMvc.perform(get("/booking")).andExpect(status().isOk());
+        mockMvc.perform(get("/booking")
+                .param("startDate", LocalDate.now().toString())
+                .param("endDate", LocalDate.now().plusMonths(1).toString())
+        ).andExpect(status().isOk());
+
+        CacheStatsResponse after = stats();
+        Assertions.assertEquals(1, after.missCount() - before.missCount());
+        Assertions.assertEquals(1, after.hitCount() - before.hitCount());
+        Assertions.assertEquals(1, after.size());
+    }
+
+    @Test
+    public void cacheIsBoundedAndExpiresAtMidnight() throws Exception {
+        mockMvc.perform(get("/booking")).andExpect(status().isOk());
+
+        Cache<Object, Object> cache = nativeCache();
+        Assertions.assertEquals(1000, cache.policy().eviction().orElseThrow().getMaximum());
+
+        long expiresAfter = cache.policy().expireVariably().orElseThrow()
+                .getExpiresAfter(new AvailabilityKey(Campsite.DEFAULT_ID, DateRange.defaultWindow()), TimeUnit.NANOSECONDS).orElseThrow();
+        long untilMidnight = Duration.between(LocalDateTime.now(), LocalDate.now().plusDays(1).atStartOfDay()).toNanos();
+        // cache and test read clock at slightly different moments
+        Assertions.assertTrue(expiresAfter > 0);
+        Assertions.assertTrue(expiresAfter <= untilMidnight + TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private CacheStatsResponse stats() throws Exception {
+        String response = mockMvc.perform(get("/cache/availability/stats"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, CacheStatsResponse.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache<Object, Object> nativeCache() {
+        return (Cache<Object, Object>) cacheManager.getCache("availability").getNativeCache();
+    }
+}
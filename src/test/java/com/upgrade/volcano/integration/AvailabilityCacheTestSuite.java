@@ -1,16 +1,17 @@
 package com.upgrade.volcano.integration;
 
 import com.upgrade.volcano.controller.BookingController;
-import com.upgrade.volcano.dto.BookingRequest;
-import com.upgrade.volcano.service.BookingService;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.service.AvailabilityIndex;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.time.LocalDate;
-import java.util.UUID;
 
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -21,40 +22,23 @@ public class AvailabilityCacheTestSuite {
 
     @Autowired
     private BookingController bookingController;
-    @MockBean
-    private BookingService bookingService;
+    // cache is on the service now, so we check how many times snapshot was built from the index
+    @SpyBean
+    private AvailabilityIndex availabilityIndex;
 
     @Test
     public void testGetCache() {
-        bookingController.getAvailability(LocalDate.now(), LocalDate.now().plusMonths(1));
-        bookingController.getAvailability(LocalDate.now().plusDays(1), LocalDate.now().plusMonths(1));
-        bookingController.getAvailability(LocalDate.now(), LocalDate.now().plusMonths(1));
+        bookingController.getAvailability(null, LocalDate.now(), LocalDate.now().plusMonths(1), webRequest());
+        bookingController.getAvailability(null, LocalDate.now().plusDays(1), LocalDate.now().plusMonths(1), webRequest());
+        bookingController.getAvailability(null, LocalDate.now(), LocalDate.now().plusMonths(1), webRequest());
 
-        verify(bookingService, times(1)).getBookedDates(LocalDate.now(), LocalDate.now().plusMonths(1));
-        verify(bookingService, times(1)).getBookedDates(LocalDate.now().plusDays(1), LocalDate.now().plusMonths(1));
+        verify(availabilityIndex, times(1)).getSnapshot(Campsite.DEFAULT_ID, LocalDate.now(), LocalDate.now().plusMonths(1));
+        verify(availabilityIndex, times(1)).getSnapshot(Campsite.DEFAULT_ID, LocalDate.now().plusDays(1), LocalDate.now().plusMonths(1));
     }
 
-    @Test
-    public void testBookCacheEviction() {
-        bookingController.getAvailability(LocalDate.now(), LocalDate.now().plusMonths(2));
-        bookingController.getAvailability(LocalDate.now(), LocalDate.now().plusMonths(2));
-
-        bookingController.book(new BookingRequest(LocalDate.now().plusDays(2), LocalDate.now().plusDays(3), "name", "email@email.com"));
-
-        bookingController.getAvailability(LocalDate.now(), LocalDate.now().plusMonths(2));
-        verify(bookingService, times(2)).getBookedDates(LocalDate.now(), LocalDate.now().plusMonths(2));
+    private ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest());
     }
 
-    @Test
-    public void testCancelCacheEviction() {
-        bookingController.getAvailability(LocalDate.now(), LocalDate.now().plusMonths(3));
-        bookingController.getAvailability(LocalDate.now(), LocalDate.now().plusMonths(3));
-
-        bookingController.cancelBooking(UUID.randomUUID().toString());
-
-        bookingController.getAvailability(LocalDate.now(), LocalDate.now().plusMonths(3));
-        verify(bookingService, times(2)).getBookedDates(LocalDate.now(), LocalDate.now().plusMonths(3));
-    }
-
-
+    // eviction is done after commit by the service, it is tested in AvailabilityCacheEvictionTestSuite
 }
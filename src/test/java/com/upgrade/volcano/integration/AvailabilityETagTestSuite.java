@@ -0,0 +1,127 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AvailabilityETagTestSuite {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    private final LocalDate today = LocalDate.now();
+    private final DateRange firstWeek = new DateRange(today.plusDays(1), today.plusDays(7));
+    private final DateRange secondWeek = new DateRange(today.plusDays(8), today.plusDays(14));
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+        cacheManager.getCache("availability").clear();
+    }
+
+    @Test
+    public void matchingETagGetsNotModifiedWithoutBody() throws Exception {
+        String eTag = eTag(firstWeek);
+        cacheManager.getCache("availability").clear();
+
+        mockMvc.perform(availability(firstWeek).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().bytes(new byte[0]));
+        // 304 is answered from the version only, nothing is built or put to the cache
+        Assertions.assertNull(cacheManager.getCache("availability").get(firstWeek));
+    }
+
+    @Test
+    public void writesChangeETagOnlyOfOverlappingWindows() throws Exception {
+        String firstWeekETag = eTag(firstWeek);
+        String secondWeekETag = eTag(secondWeek);
+
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, today.plusDays(2), today.plusDays(3), "etag@email.com", "etag");
+
+        assertModified(firstWeek, firstWeekETag);
+        assertNotModified(secondWeek, secondWeekETag);
+
+        firstWeekETag = eTag(firstWeek);
+        bookingService.update(bookingId, today.plusDays(9), today.plusDays(10), null, null);
+
+        assertModified(firstWeek, firstWeekETag);
+        assertModified(secondWeek, secondWeekETag);
+
+        firstWeekETag = eTag(firstWeek);
+        secondWeekETag = eTag(secondWeek);
+        bookingService.cancel(bookingId);
+
+        assertNotModified(firstWeek, firstWeekETag);
+        assertModified(secondWeek, secondWeekETag);
+    }
+
+    @Test
+    public void sameVersionOfDifferentWindowsHasDifferentETags() throws Exception {
+        Assertions.assertNotEquals(eTag(firstWeek), eTag(secondWeek));
+    }
+
+    private String eTag(DateRange window) throws Exception {
+        String eTag = mockMvc.perform(availability(window))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotNull(eTag);
+        Assertions.assertFalse(eTag.startsWith("W/"), "etag must be strong");
+        return eTag;
+    }
+
+    private void assertNotModified(DateRange window, String eTag) throws Exception {
+        mockMvc.perform(availability(window).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+    }
+
+    private void assertModified(DateRange window, String eTag) throws Exception {
+        mockMvc.perform(availability(window).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+    }
+
+    private MockHttpServletRequestBuilder availability(DateRange window) {
+        return get("/booking")
+                .param("startDate", window.startDate().toString())
+                .param("endDate", window.endDate().toString());
+    }
+}
@@ -0,0 +1,111 @@
+package com.upgrade.volcano.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.volcano.dto.AvailabilityResponse;
+import com.upgrade.volcano.dto.AvailabilitySnapshot;
+import com.upgrade.volcano.exception.BookingForUserExist;
+import com.upgrade.volcano.model.Booking;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AvailabilityIndexTestSuite {
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void cleanupDb() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+    }
+
+    @Test
+    public void indexIsLoadedFromDb() {
+        LocalDate date = LocalDate.now().plusDays(5);
+        bookingDao.save(new Booking(date, UUID.randomUUID()));
+        // nobody told index about this row yet
+        Assertions.assertTrue(availabilityIndex.getBookedDates(Campsite.DEFAULT_ID, date, date).isEmpty());
+
+        availabilityIndex.load();
+        Assertions.assertEquals(List.of(date), availabilityIndex.getBookedDates(Campsite.DEFAULT_ID, LocalDate.now(), date.plusDays(1)));
+    }
+
+    @Test
+    public void indexFollowsCommittedWrites() {
+        LocalDate startDate = LocalDate.now().plusDays(10);
+        LocalDate endDate = LocalDate.now().plusDays(12);
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, startDate, endDate, "index@email.com", "index");
+        Assertions.assertEquals(dates(startDate, endDate), bookingService.getBookedDates(Campsite.DEFAULT_ID, LocalDate.now(), endDate.plusDays(10)));
+
+        // moving booking by two days, one day is shared between old and new dates
+        bookingService.update(bookingId, startDate.plusDays(2), endDate.plusDays(2), null, null);
+        Assertions.assertEquals(dates(startDate.plusDays(2), endDate.plusDays(2)),
+                bookingService.getBookedDates(Campsite.DEFAULT_ID, LocalDate.now(), endDate.plusDays(10)));
+
+        bookingService.cancel(bookingId);
+        Assertions.assertTrue(bookingService.getBookedDates(Campsite.DEFAULT_ID, LocalDate.now(), endDate.plusDays(10)).isEmpty());
+    }
+
+    @Test
+    public void failedBookingDoesNotChangeIndex() {
+        LocalDate startDate = LocalDate.now().plusDays(10);
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, startDate, startDate, "index@email.com", "index");
+
+        Assertions.assertThrows(BookingForUserExist.class,
+                () -> bookingService.book(Campsite.DEFAULT_ID, startDate.plusDays(3), startDate.plusDays(4), "index@email.com", "index"));
+        Assertions.assertEquals(List.of(startDate), bookingService.getBookedDates(Campsite.DEFAULT_ID, LocalDate.now(), startDate.plusDays(10)));
+
+        bookingService.cancel(bookingId);
+    }
+
+    @Test
+    public void snapshotIsEncodedAsAvailabilityResponse() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(1);
+        LocalDate endDate = LocalDate.now().plusDays(20);
+        bookingService.book(Campsite.DEFAULT_ID, startDate, startDate.plusDays(1), "first@email.com", "first");
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, endDate.minusDays(2), endDate, "second@email.com", "second");
+        long versionBefore = availabilityIndex.getVersion();
+
+        AvailabilitySnapshot snapshot = availabilityIndex.getSnapshot(Campsite.DEFAULT_ID, startDate, endDate);
+        var expected = new AvailabilityResponse(bookingService.getBookedDates(Campsite.DEFAULT_ID, startDate, endDate), startDate, endDate);
+        Assertions.assertEquals(objectMapper.valueToTree(expected), objectMapper.readTree(snapshot.json()));
+        Assertions.assertEquals(versionBefore, snapshot.version());
+
+        // every write makes a new version
+        bookingService.cancel(bookingId);
+        Assertions.assertTrue(availabilityIndex.getSnapshot(Campsite.DEFAULT_ID, startDate, endDate).version() > versionBefore);
+    }
+
+    private List<LocalDate> dates(LocalDate startDate, LocalDate endDate) {
+        return startDate.datesUntil(endDate.plusDays(1)).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,140 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import com.upgrade.volcano.stream.AvailabilityStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class AvailabilityStreamTestSuite {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private AvailabilityStream availabilityStream;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    // volcano.stream.senders
+    private static final int SENDERS = 4;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+    }
+
+    @Test
+    public void subscriberGetsChangedDaysOfEveryWrite() throws Exception {
+        MockHttpServletResponse stream = subscribe();
+
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, today.plusDays(2), today.plusDays(3), "stream@email.com", "stream");
+        awaitContent(stream, "event:availability\ndata:{\"availability\":{\"%s\":false,\"%s\":false}}\n\n"
+                .formatted(today.plusDays(2), today.plusDays(3)));
+
+        // overlapping move: day which is booked again is sent once
+        bookingService.update(bookingId, today.plusDays(3), today.plusDays(4), null, null);
+        awaitContent(stream, "data:{\"availability\":{\"%s\":true,\"%s\":false,\"%s\":false}}\n\n"
+                .formatted(today.plusDays(2), today.plusDays(3), today.plusDays(4)));
+
+        bookingService.cancel(bookingId);
+        awaitContent(stream, "data:{\"availability\":{\"%s\":true,\"%s\":true}}\n\n"
+                .formatted(today.plusDays(3), today.plusDays(4)));
+    }
+
+    @Test
+    public void guestUpdateIsNotSent() throws Exception {
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, today.plusDays(2), today.plusDays(3), "stream@email.com", "stream");
+        MockHttpServletResponse stream = subscribe();
+
+        bookingService.update(bookingId, null, null, null, "new name");
+        bookingService.cancel(bookingId);
+
+        // events are sent in order, so when cancel is here guest update would be here too
+        awaitContent(stream, "\"%s\":true".formatted(today.plusDays(3)));
+        Assertions.assertEquals(1, stream.getContentAsString().split("event:availability").length - 1);
+    }
+
+    @Test
+    public void sendersDontGrowWithSubscribers() throws Exception {
+        List<MockHttpServletResponse> streams = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            streams.add(subscribe());
+        }
+
+        bookingService.book(Campsite.DEFAULT_ID, today.plusDays(2), today.plusDays(2), "stream@email.com", "stream");
+        for (MockHttpServletResponse stream : streams) {
+            awaitContent(stream, "\"%s\":false".formatted(today.plusDays(2)));
+        }
+        long senders = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().equals("availability-stream-sender"))
+                .count();
+        Assertions.assertTrue(senders <= SENDERS, "%d sender threads".formatted(senders));
+    }
+
+    @Test
+    public void unknownCampsiteIsRejectedWithoutSubscribing() throws Exception {
+        int subscribers = availabilityStream.getSubscriberCount();
+
+        mockMvc.perform(get("/booking/stream").param("campsiteId", "99"))
+                .andExpect(status().isBadRequest());
+        Assertions.assertEquals(subscribers, availabilityStream.getSubscriberCount());
+    }
+
+    private MockHttpServletResponse subscribe() throws Exception {
+        MvcResult result = mockMvc.perform(get("/booking/stream"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Assertions.assertTrue(availabilityStream.getSubscriberCount() > 0);
+        MockHttpServletResponse response = result.getResponse();
+        Assertions.assertTrue(MediaType.TEXT_EVENT_STREAM.isCompatibleWith(MediaType.parseMediaType(response.getContentType())));
+        return response;
+    }
+
+    // fan-out is done by its own thread after commit
+    private void awaitContent(MockHttpServletResponse stream, String expected) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!stream.getContentAsString().contains(expected)) {
+            Assertions.assertTrue(System.nanoTime() < deadline,
+                    "stream doesn't have %s, it has %s".formatted(expected, stream.getContentAsString()));
+            Thread.sleep(10);
+        }
+    }
+}
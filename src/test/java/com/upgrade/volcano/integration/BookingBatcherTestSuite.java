@@ -0,0 +1,239 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.batch.BookingBatcher;
+import com.upgrade.volcano.exception.BookingForDatesExist;
+import com.upgrade.volcano.exception.BookingForUserExist;
+import com.upgrade.volcano.metrics.TimedTransactionManager;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.NewBooking;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+// batching is off in the application, so batcher is created here on top of the same service
+@SpringBootTest
+@AutoConfigureMockMvc
+public class BookingBatcherTestSuite {
+
+    private static final int REQUESTS = 16;
+
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    private final LocalDate today = LocalDate.now();
+    private final ExecutorService clients = Executors.newFixedThreadPool(REQUESTS);
+    private BookingBatcher batcher;
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+        // window is long enough for all requests of a test to get into one batch
+        batcher = new BookingBatcher(bookingService, Duration.ofMillis(300), 64, Duration.ofSeconds(10));
+    }
+
+    @AfterEach
+    public void stop() {
+        batcher.close();
+        clients.shutdownNow();
+    }
+
+    @Test
+    public void burstIsSavedWithOneCommit() {
+        long commitsBefore = commits();
+
+        List<CompletableFuture<UUID>> results = burst(i -> () -> batcher.book(
+                Campsite.DEFAULT_ID, today.plusDays(40 + i), today.plusDays(40 + i), "batch%d@email.com".formatted(i), "batch"));
+
+        results.forEach(r -> Assertions.assertNotNull(r.join()));
+        Assertions.assertTrue(commits() - commitsBefore < REQUESTS / 2,
+                "%d bookings made %d commits".formatted(REQUESTS, commits() - commitsBefore));
+        Assertions.assertEquals(REQUESTS, bookingService.getBookedDates(Campsite.DEFAULT_ID, today.plusDays(40), today.plusDays(40 + REQUESTS)).size());
+    }
+
+    @Test
+    public void firstRequestWinsDayAndEmailInsideBatch() {
+        List<CompletableFuture<UUID>> results = burst(i -> () -> batcher.book(
+                Campsite.DEFAULT_ID, today.plusDays(40 + i % 2), today.plusDays(40 + i % 2), "same%d@email.com".formatted(i % 3), "batch"));
+
+        // two days and three emails, so at most two winners no matter the order
+        long booked = results.stream().filter(r -> outcome(r) == null).count();
+        Assertions.assertEquals(2, booked);
+        results.stream().map(this::outcome).filter(e -> e != null)
+                .forEach(e -> Assertions.assertTrue(e instanceof BookingForDatesExist || e instanceof BookingForUserExist, e.toString()));
+    }
+
+    // batch is rolled back because of one booking, others are saved one by one and get their ids
+    @Test
+    public void conflictWithDbFailsOnlyConflictingBooking() {
+        bookingService.book(Campsite.DEFAULT_ID, today.plusDays(30), today.plusDays(30), "taken@email.com", "taken");
+
+        List<CompletableFuture<UUID>> results = burst(i -> () -> batcher.book(
+                Campsite.DEFAULT_ID, today.plusDays(40 + i), today.plusDays(40 + i),
+                i == 0 ? "taken@email.com" : "free%d@email.com".formatted(i), "batch"));
+
+        Assertions.assertTrue(outcome(results.get(0)) instanceof BookingForUserExist);
+        results.subList(1, REQUESTS).forEach(r -> Assertions.assertNotNull(r.join()));
+    }
+
+    // nobody is left waiting: neither the booking in the transaction nor the one which came during it
+    @Test
+    public void closeDuringFlushFailsBatchAndQueuedRequests() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        batcher.close();
+        batcher = new BookingBatcher(blockingService(flushing, new CountDownLatch(1)), Duration.ofMillis(1), 64, Duration.ofSeconds(30));
+
+        CompletableFuture<UUID> inFlush = bookAsync(40);
+        flushing.await();
+        CompletableFuture<UUID> queued = bookAsync(41);
+        batcher.close();
+
+        Assertions.assertTrue(failure(inFlush) instanceof IllegalStateException);
+        Assertions.assertTrue(failure(queued) instanceof IllegalStateException);
+    }
+
+    @Test
+    public void errorInFlushStopsBatcherAndFailsRequests() throws Exception {
+        batcher.close();
+        batcher = new BookingBatcher(new BookingService(null, null, null, null, null, null, new SimpleMeterRegistry(), false) {
+            @Override
+            public void bookAll(List<NewBooking> bookings) {
+                throw new AssertionError("flusher is broken");
+            }
+        }, Duration.ofMillis(1), 64, Duration.ofSeconds(30));
+
+        Assertions.assertTrue(failure(bookAsync(40)) instanceof IllegalStateException);
+        Assertions.assertThrows(IllegalStateException.class, () -> batcher.book(
+                Campsite.DEFAULT_ID, today.plusDays(41), today.plusDays(41), "after@email.com", "batch"));
+    }
+
+    @Test
+    public void queuedCallerStopsWaitingAfterTimeout() throws Exception {
+        batcher.close();
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new BookingBatcher(blockingService(flushing, release), Duration.ofMillis(1), 64, Duration.ofMillis(200));
+        CompletableFuture<UUID> inFlight = bookAsync(40);
+        Assertions.assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        long started = System.nanoTime();
+        Assertions.assertThrows(IllegalStateException.class, () -> batcher.book(
+                Campsite.DEFAULT_ID, today.plusDays(41), today.plusDays(41), "slow@email.com", "batch"));
+        Assertions.assertTrue(System.nanoTime() - started < Duration.ofSeconds(5).toNanos());
+        release.countDown();
+        Assertions.assertNotNull(inFlight.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void callerOfBookingInTransactionWaitsForItsOutcome() throws Exception {
+        batcher.close();
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        batcher = new BookingBatcher(blockingService(flushing, release), Duration.ofMillis(1), 64, Duration.ofMillis(200));
+        CompletableFuture<UUID> result = bookAsync(40);
+        Assertions.assertTrue(flushing.await(5, TimeUnit.SECONDS));
+
+        // transaction ends after the timeout of the caller, booking is saved and the caller gets its id
+        Thread.sleep(500);
+        Assertions.assertFalse(result.isDone());
+        release.countDown();
+        Assertions.assertNotNull(result.get(5, TimeUnit.SECONDS));
+    }
+
+    // batch transaction which doesn't end until released, interrupt fails it as it would fail a JDBC call
+    private static BookingService blockingService(CountDownLatch flushing, CountDownLatch release) {
+        return new BookingService(null, null, null, null, null, null, new SimpleMeterRegistry(), false) {
+            @Override
+            public void bookAll(List<NewBooking> bookings) {
+                flushing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+    }
+
+    private CompletableFuture<UUID> bookAsync(int day) {
+        return CompletableFuture.supplyAsync(() -> batcher.book(
+                Campsite.DEFAULT_ID, today.plusDays(day), today.plusDays(day), "batch%d@email.com".formatted(day), "batch"), clients);
+    }
+
+    // fails the test instead of hanging if request is never answered
+    private static Throwable failure(CompletableFuture<UUID> result) {
+        return Assertions.assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS)).getCause();
+    }
+
+    private List<CompletableFuture<UUID>> burst(IntFunction<Supplier<UUID>> request) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<UUID>> results = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            Supplier<UUID> booking = request.apply(i);
+            results.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return booking.get();
+            }, clients));
+        }
+        start.countDown();
+        return results;
+    }
+
+    // null if booked
+    private Throwable outcome(CompletableFuture<UUID> result) {
+        try {
+            result.join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause();
+        }
+    }
+
+    private long commits() {
+        return meterRegistry.find(TimedTransactionManager.TRANSACTIONS).tag("outcome", "commit").timers().stream()
+                .mapToLong(Timer::count).sum();
+    }
+}
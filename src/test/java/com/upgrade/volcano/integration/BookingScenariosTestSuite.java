@@ -12,6 +12,7 @@ import com.upgrade.volcano.model.Guest;
 import com.upgrade.volcano.repository.BookingDao;
 import com.upgrade.volcano.repository.BookingToGuestDao;
 import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,6 +42,8 @@ public class BookingScenariosTestSuite {
     private GuestDao guestDao;
     @Autowired
     private BookingToGuestDao bookingToGuestDao;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
 
     @Autowired
     private MockMvc mockMvc;
@@ -55,6 +58,8 @@ public class BookingScenariosTestSuite {
         bookingToGuestDao.deleteAll();
         bookingDao.deleteAll();
         guestDao.deleteAll();
+        // we cleaned DB behind service's back, so in memory index must be reloaded
+        availabilityIndex.load();
     }
 
     @Test
@@ -313,6 +318,77 @@ public class BookingScenariosTestSuite {
         cancel(secondBookingId);
     }
 
+    @Test
+    public void updateToBookedDates() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(10);
+        LocalDate endDate = LocalDate.now().plusDays(12);
+        String email = "test@email.com";
+        String name = "test";
+        UUID firstBookingId = book(startDate, endDate, name, email);
+        UUID secondBookingId = book(startDate.plusDays(3), endDate.plusDays(3), name, email + "1");
+
+        // moving second booking so it overlaps with the first one
+        var updateRequest = new BookingRequest(startDate.plusDays(2), endDate.plusDays(2), null, null);
+        String errorResponseStr = mockMvc.perform(put("/booking/" + secondBookingId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                ).andExpect(status().isNotAcceptable())
+                .andReturn().getResponse().getContentAsString();
+        var errorResponse = objectMapper.readValue(errorResponseStr, ErrorResponse.class);
+        Assertions.assertEquals(ErrorCode.BOOKING_FOR_DATE_EXIST, errorResponse.code());
+        Assertions.assertEquals("There is another Booking for dates %s".formatted(endDate), errorResponse.message());
+
+        // second booking kept its dates
+        Set<LocalDate> secondBookingDates = bookingDao.findAllByBookingId(secondBookingId).stream()
+                .map(Booking::getDate).collect(Collectors.toSet());
+        Assertions.assertEquals(startDate.plusDays(3).datesUntil(endDate.plusDays(4)).collect(Collectors.toSet()),
+                secondBookingDates);
+
+        cancel(firstBookingId);
+        cancel(secondBookingId);
+    }
+
+    @Test
+    public void cancelAndUpdateMissingBooking() throws Exception {
+        UUID bookingId = UUID.randomUUID();
+
+        String errorResponseStr = mockMvc.perform(delete("/booking/" + bookingId))
+                .andExpect(status().isNotAcceptable())
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertEquals(ErrorCode.BOOKING_DOES_NOT_EXIST,
+                objectMapper.readValue(errorResponseStr, ErrorResponse.class).code());
+
+        // guest only update finds out that booking doesn't exist from the number of updated rows
+        var updateRequest = new BookingRequest(null, null, "name", null);
+        errorResponseStr = mockMvc.perform(put("/booking/" + bookingId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                ).andExpect(status().isNotAcceptable())
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertEquals(ErrorCode.BOOKING_DOES_NOT_EXIST,
+                objectMapper.readValue(errorResponseStr, ErrorResponse.class).code());
+    }
+
+    @Test
+    public void updateToEmailOfAnotherGuest() throws Exception {
+        LocalDate startDate = LocalDate.now().plusDays(10);
+        LocalDate endDate = LocalDate.now().plusDays(12);
+        UUID firstBookingId = book(startDate, endDate, "test", "test@email.com");
+        UUID secondBookingId = book(startDate.plusDays(3), endDate.plusDays(3), "test", "test1@email.com");
+
+        var updateRequest = new BookingRequest(null, null, null, "test@email.com");
+        String errorResponseStr = mockMvc.perform(put("/booking/" + secondBookingId)
+                        .contentType("application/json")
+                        .content(objectMapper.writeValueAsString(updateRequest))
+                ).andExpect(status().isNotAcceptable())
+                .andReturn().getResponse().getContentAsString();
+        Assertions.assertEquals(ErrorCode.BOOKING_FOR_USER_EXIST,
+                objectMapper.readValue(errorResponseStr, ErrorResponse.class).code());
+
+        cancel(firstBookingId);
+        cancel(secondBookingId);
+    }
+
     private UUID book(LocalDate startDate, LocalDate endDate, String name, String email) throws Exception {
         var bookingRequest = new BookingRequest();
         bookingRequest.setStartDate(startDate);
@@ -0,0 +1,151 @@
+package com.upgrade.volcano.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.volcano.cache.AvailabilityKey;
+import com.upgrade.volcano.dto.BookingRequest;
+import com.upgrade.volcano.dto.BookingResponse;
+import com.upgrade.volcano.dto.UpdateBookingRequest;
+import com.upgrade.volcano.exception.ErrorCode;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CampsiteTestSuite {
+
+    private static final int CRATER = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        jdbcTemplate.update("merge into campsite(id, name) key(id) values (?, 'Crater')", CRATER);
+        availabilityIndex.load();
+        cacheManager.getCache("availability").clear();
+    }
+
+    @Test
+    public void sameDatesAreBookedOnDifferentCampsites() throws Exception {
+        LocalDate start = today.plusDays(12);
+        LocalDate end = today.plusDays(14);
+
+        book(null, start, end, "volcano@email.com").andExpect(status().isOk());
+        book(CRATER, start, end, "crater@email.com").andExpect(status().isOk());
+        book(CRATER, start, end, "late@email.com")
+                .andExpect(status().isNotAcceptable())
+                .andExpect(jsonPath("$.code").value(ErrorCode.BOOKING_FOR_DATE_EXIST.name()));
+
+        availability(Campsite.DEFAULT_ID, start, end).andExpect(jsonPath("$.availability['%s']".formatted(start)).value(false));
+        availability(CRATER, start, end).andExpect(jsonPath("$.availability['%s']".formatted(start)).value(false));
+    }
+
+    @Test
+    public void unknownCampsiteIsRejected() throws Exception {
+        book(99, today.plusDays(2), today.plusDays(3), "nowhere@email.com")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(ErrorCode.VALIDATION_ERROR.name()));
+        availability(99, today.plusDays(2), today.plusDays(3))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value(ErrorCode.VALIDATION_ERROR.name()));
+    }
+
+    // write to one campsite doesn't touch cache entries and etags of another one
+    @Test
+    public void otherCampsiteStaysCached() throws Exception {
+        LocalDate start = today.plusDays(5);
+        LocalDate end = today.plusDays(7);
+        String eTag = availability(Campsite.DEFAULT_ID, start, end).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        availability(CRATER, start, end);
+
+        book(CRATER, start, end, "crater@email.com").andExpect(status().isOk());
+
+        Assertions.assertNotNull(cache(Campsite.DEFAULT_ID, start, end), "default campsite must stay in cache");
+        Assertions.assertNull(cache(CRATER, start, end), "changed campsite must be evicted");
+        mockMvc.perform(get("/booking")
+                .param("startDate", start.toString())
+                .param("endDate", end.toString())
+                .header(HttpHeaders.IF_NONE_MATCH, eTag)
+        ).andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void bookingIsMovedOnItsCampsite() throws Exception {
+        String response = book(CRATER, today.plusDays(2), today.plusDays(3), "crater@email.com")
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        BookingResponse booking = objectMapper.readValue(response, BookingResponse.class);
+
+        mockMvc.perform(put("/booking/" + booking.bookingId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(
+                        new UpdateBookingRequest(today.plusDays(10), today.plusDays(11), null, null)))
+        ).andExpect(status().isOk());
+
+        availability(CRATER, today.plusDays(2), today.plusDays(11))
+                .andExpect(jsonPath("$.availability['%s']".formatted(today.plusDays(2))).value(true))
+                .andExpect(jsonPath("$.availability['%s']".formatted(today.plusDays(10))).value(false));
+        availability(Campsite.DEFAULT_ID, today.plusDays(2), today.plusDays(11))
+                .andExpect(jsonPath("$.availability['%s']".formatted(today.plusDays(10))).value(true));
+    }
+
+    private ResultActions book(Integer campsiteId, LocalDate start, LocalDate end, String email) throws Exception {
+        return mockMvc.perform(post("/booking")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BookingRequest(campsiteId, start, end, "Guest", email))));
+    }
+
+    private ResultActions availability(int campsiteId, LocalDate start, LocalDate end) throws Exception {
+        return mockMvc.perform(get("/booking")
+                .param("campsiteId", String.valueOf(campsiteId))
+                .param("startDate", start.toString())
+                .param("endDate", end.toString()));
+    }
+
+    private Object cache(int campsiteId, LocalDate start, LocalDate end) {
+        return cacheManager.getCache("availability").get(new AvailabilityKey(campsiteId, new DateRange(start, end)));
+    }
+}
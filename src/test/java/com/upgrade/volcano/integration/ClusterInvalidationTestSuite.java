@@ -0,0 +1,140 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.VolcanoApplication;
+import com.upgrade.volcano.cache.AvailabilityCacheEvictor;
+import com.upgrade.volcano.cache.AvailabilityKey;
+import com.upgrade.volcano.cluster.ClusterInvalidation;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.model.DateRange;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+
+// two instances of the application on one file DB, as two nodes behind a load balancer
+public class ClusterInvalidationTestSuite {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeAll
+    public static void start() {
+        String url = "jdbc:h2:file:./target/cluster-%s".formatted(UUID.randomUUID());
+        // schema is created by the first node only, as it would be done once for a real shared DB
+        nodeA = node("a", url, "always");
+        nodeB = node("b", url, "never");
+    }
+
+    @AfterAll
+    public static void stop() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    @Test
+    public void bookingOnOneNodeEvictsOnlyOverlappingWindowOnAnother() {
+        DateRange changed = new DateRange(today.plusDays(10), today.plusDays(12));
+        DateRange untouched = new DateRange(today.plusDays(20), today.plusDays(22));
+        BookingService serviceB = nodeB.getBean(BookingService.class);
+        serviceB.getAvailability(Campsite.DEFAULT_ID, changed.startDate(), changed.endDate());
+        serviceB.getAvailability(Campsite.DEFAULT_ID, untouched.startDate(), untouched.endDate());
+
+        nodeA.getBean(BookingService.class).book(Campsite.DEFAULT_ID, today.plusDays(11), today.plusDays(11), "cluster@email.com", "cluster");
+
+        Cache cacheB = nodeB.getBean(CacheManager.class).getCache(AvailabilityCacheEvictor.AVAILABILITY_CACHE);
+        await(() -> cacheB.get(new AvailabilityKey(Campsite.DEFAULT_ID, changed)) == null);
+        Assertions.assertNotNull(cacheB.get(new AvailabilityKey(Campsite.DEFAULT_ID, untouched)));
+        Assertions.assertEquals(List.of(today.plusDays(11)),
+                serviceB.getBookedDates(Campsite.DEFAULT_ID, changed.startDate(), changed.endDate()));
+        // lag is recorded after the change is applied, eviction can be seen a moment earlier
+        await(() -> nodeB.getBean(MeterRegistry.class).get(ClusterInvalidation.LAG).timer().count() > 0);
+    }
+
+    // both nodes count versions of the window on their own, the same number on another node is not the same data
+    @Test
+    public void eTagOfOneNodeIsNotMatchedByAnother() throws IOException, InterruptedException {
+        String window = "/booking?startDate=%s&endDate=%s".formatted(today.plusDays(50), today.plusDays(52));
+        String eTag = get(nodeA, window, null).headers().firstValue(HttpHeaders.ETAG).orElseThrow();
+
+        Assertions.assertEquals(304, get(nodeA, window, eTag).statusCode());
+        HttpResponse<Void> fromB = get(nodeB, window, eTag);
+        Assertions.assertEquals(200, fromB.statusCode());
+        Assertions.assertNotEquals(eTag, fromB.headers().firstValue(HttpHeaders.ETAG).orElseThrow());
+    }
+
+    @Test
+    public void bookingMadeOnOneNodeCanBeCancelledOnAnother() {
+        UUID bookingId = nodeA.getBean(BookingService.class)
+                .book(Campsite.DEFAULT_ID, today.plusDays(30), today.plusDays(31), "moving@email.com", "moving");
+        AvailabilityIndex indexA = nodeA.getBean(AvailabilityIndex.class);
+        AvailabilityIndex indexB = nodeB.getBean(AvailabilityIndex.class);
+        await(() -> indexB.getCampsite(bookingId) != null);
+
+        nodeB.getBean(BookingService.class).cancel(bookingId);
+
+        await(() -> indexA.getBookedDates(Campsite.DEFAULT_ID, today.plusDays(30), today.plusDays(31)).isEmpty());
+        Assertions.assertNull(indexA.getCampsite(bookingId));
+        Assertions.assertNull(indexB.getCampsite(bookingId));
+    }
+
+    private static ConfigurableApplicationContext node(String name, String url, String sqlInit) {
+        return new SpringApplicationBuilder(VolcanoApplication.class)
+                .logStartupInfo(false)
+                // arguments, not default properties, they have to win over application.properties
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + url,
+                        "--spring.sql.init.mode=" + sqlInit,
+                        "--volcano.cluster.bus=jdbc",
+                        "--volcano.cluster.node=" + name,
+                        "--volcano.cluster.poll-interval=20ms",
+                        "--springfox.documentation.enabled=false"
+                );
+    }
+
+    private static HttpResponse<Void> get(ConfigurableApplicationContext node, String path, String ifNoneMatch)
+            throws IOException, InterruptedException {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:%d%s".formatted(port, path)));
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return HttpClient.newHttpClient().send(request.GET().build(), HttpResponse.BodyHandlers.discarding());
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "change didn't reach another node in " + TIMEOUT);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
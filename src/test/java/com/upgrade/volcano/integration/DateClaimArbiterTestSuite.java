@@ -0,0 +1,87 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.exception.BookingForDatesExist;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import com.upgrade.volcano.service.DateClaimArbiter;
+import com.upgrade.volcano.service.DateClaimArbiter.DateClaim;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class DateClaimArbiterTestSuite {
+
+    @Autowired
+    private DateClaimArbiter dateClaimArbiter;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    private final LocalDate startDate = LocalDate.now().plusDays(10);
+
+    @BeforeEach
+    public void cleanupDb() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+    }
+
+    @Test
+    public void overlappingClaimLosesUntilFirstIsClosed() {
+        DateClaim claim = dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate, startDate.plusDays(2));
+
+        var e = Assertions.assertThrows(BookingForDatesExist.class,
+                () -> dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate.plusDays(2), startDate.plusDays(4)));
+        Assertions.assertEquals("There is another Booking for dates " + startDate.plusDays(2), e.getMessage());
+        // days next to the claim are free
+        dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate.plusDays(3), startDate.plusDays(4)).close();
+
+        claim.close();
+        dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate.plusDays(2), startDate.plusDays(4)).close();
+    }
+
+    @Test
+    public void lostClaimReleasesDaysItWon() {
+        DateClaim claim = dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate.plusDays(2), startDate.plusDays(2));
+
+        // first two days were won before the third one was lost
+        Assertions.assertThrows(BookingForDatesExist.class,
+                () -> dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate, startDate.plusDays(2)));
+        dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate, startDate.plusDays(1)).close();
+
+        claim.close();
+    }
+
+    @Test
+    public void bookedDaysCantBeClaimedExceptByTheirBooking() {
+        UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, startDate, startDate.plusDays(1), "claim@email.com", "claim");
+
+        Assertions.assertThrows(BookingForDatesExist.class,
+                () -> dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate.plusDays(1), startDate.plusDays(2)));
+        // booking can be moved to the dates it overlaps
+        dateClaimArbiter.claim(Campsite.DEFAULT_ID, bookingId, startDate.plusDays(1), startDate.plusDays(2)).close();
+
+        bookingService.cancel(bookingId);
+        dateClaimArbiter.claim(Campsite.DEFAULT_ID, null, startDate.plusDays(1), startDate.plusDays(2)).close();
+    }
+}
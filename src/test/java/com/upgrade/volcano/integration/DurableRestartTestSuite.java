@@ -0,0 +1,174 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.VolcanoApplication;
+import com.upgrade.volcano.controller.BookingController;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import com.upgrade.volcano.service.GuestEmailIndex;
+import com.upgrade.volcano.snapshot.StateSnapshotFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// application with durable profile is stopped and started again on the same file DB
+public class DurableRestartTestSuite {
+
+    private static final Logger log = LoggerFactory.getLogger(DurableRestartTestSuite.class);
+
+    private static final int BOOKINGS = 500;
+
+    private final LocalDate today = LocalDate.now();
+    private Path directory;
+    private String url;
+
+    @BeforeEach
+    public void newDb() {
+        directory = Path.of("target", "durable-" + UUID.randomUUID()).toAbsolutePath();
+        url = "jdbc:h2:file:" + directory.resolve("volcano");
+    }
+
+    @Test
+    public void restartIsServedFromSnapshotAndRowsInsertedAfterIt() throws SQLException, IOException {
+        try (ConfigurableApplicationContext context = start()) {
+            BookingService bookingService = context.getBean(BookingService.class);
+            for (int i = 1; i <= BOOKINGS; i++) {
+                bookingService.book(Campsite.DEFAULT_ID, today.plusDays(i), today.plusDays(i), "guest%d@email.com".formatted(i), "guest");
+            }
+        }
+        // booking which came after the snapshot, as if instance crashed after writing it
+        UUID tailBooking = insertBooking(today.plusDays(BOOKINGS + 1), "tail@email.com");
+
+        long fromSnapshot;
+        long started = System.nanoTime();
+        try (ConfigurableApplicationContext context = start()) {
+            fromSnapshot = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            Assertions.assertTrue(context.getBean(StateSnapshotFile.class).restore().isPresent());
+            assertAllBooked(context, tailBooking);
+        }
+
+        Files.delete(directory.resolve("volcano.snapshot"));
+        long fromDb;
+        started = System.nanoTime();
+        try (ConfigurableApplicationContext context = start()) {
+            fromDb = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            Assertions.assertTrue(context.getBean(StateSnapshotFile.class).restore().isEmpty());
+            assertAllBooked(context, tailBooking);
+        }
+        log.info("Restart to ready with {} bookings: {} ms from snapshot, {} ms from DB", BOOKINGS + 1, fromSnapshot, fromDb);
+    }
+
+    @Test
+    public void snapshotIsNotUsedIfBookingsWereDeletedAfterIt() throws SQLException {
+        UUID cancelled;
+        try (ConfigurableApplicationContext context = start()) {
+            BookingService bookingService = context.getBean(BookingService.class);
+            cancelled = bookingService.book(Campsite.DEFAULT_ID, today.plusDays(1), today.plusDays(2), "cancelled@email.com", "guest");
+            bookingService.book(Campsite.DEFAULT_ID, today.plusDays(3), today.plusDays(3), "kept@email.com", "guest");
+        }
+        try (Connection connection = DriverManager.getConnection(url, "sa", "password");
+             PreparedStatement delete = connection.prepareStatement("delete from booking where booking_id = ?")) {
+            delete.setObject(1, cancelled);
+            delete.executeUpdate();
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            Assertions.assertTrue(context.getBean(StateSnapshotFile.class).restore().isEmpty());
+            AvailabilityIndex index = context.getBean(AvailabilityIndex.class);
+            Assertions.assertEquals(List.of(today.plusDays(3)), index.getBookedDates(Campsite.DEFAULT_ID, today, today.plusDays(3)));
+            Assertions.assertNull(index.getCampsite(cancelled));
+        }
+    }
+
+    // window which is not changed after start has the version of the load, the same number after every restart
+    @Test
+    public void eTagFromBeforeRestartIsNotMatchedAfterIt() throws SQLException {
+        String eTag;
+        try (ConfigurableApplicationContext context = start()) {
+            eTag = availability(context, null).getHeaders().getETag();
+        }
+        // booked while instance was down, snapshot is still used and the day comes from the DB
+        insertBooking(today.plusDays(2), "down@email.com");
+
+        try (ConfigurableApplicationContext context = start()) {
+            Assertions.assertTrue(context.getBean(StateSnapshotFile.class).restore().isPresent());
+            ResponseEntity<byte[]> response = availability(context, eTag);
+            Assertions.assertNotNull(response, "stale availability was answered with 304");
+            Assertions.assertTrue(new String(response.getBody()).contains("\"%s\":false".formatted(today.plusDays(2))));
+        }
+    }
+
+    // null when it is answered with 304
+    private ResponseEntity<byte[]> availability(ConfigurableApplicationContext context, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return context.getBean(BookingController.class)
+                .getAvailability(null, today.plusDays(1), today.plusDays(7), new ServletWebRequest(request));
+    }
+
+    private void assertAllBooked(ConfigurableApplicationContext context, UUID tailBooking) {
+        AvailabilityIndex index = context.getBean(AvailabilityIndex.class);
+        GuestEmailIndex emailIndex = context.getBean(GuestEmailIndex.class);
+        Assertions.assertEquals(BOOKINGS + 1, index.getBookedDates(Campsite.DEFAULT_ID, today, today.plusDays(BOOKINGS + 1)).size());
+        Assertions.assertEquals(Campsite.DEFAULT_ID, index.getCampsite(tailBooking));
+        Assertions.assertTrue(emailIndex.mightExist("guest1@email.com"));
+        Assertions.assertTrue(emailIndex.mightExist("tail@email.com"));
+    }
+
+    private UUID insertBooking(LocalDate date, String email) throws SQLException {
+        UUID bookingId = UUID.randomUUID();
+        UUID guestId = UUID.randomUUID();
+        try (Connection connection = DriverManager.getConnection(url, "sa", "password");
+             PreparedStatement guest = connection.prepareStatement("insert into guest(id, email, name) values (?, ?, 'tail')");
+             PreparedStatement link = connection.prepareStatement("insert into booking_to_guest(booking_id, guest_id) values (?, ?)");
+             PreparedStatement booking = connection.prepareStatement("insert into booking(campsite_id, date, booking_id) values (?, ?, ?)")) {
+            guest.setObject(1, guestId);
+            guest.setString(2, email);
+            guest.executeUpdate();
+            link.setObject(1, bookingId);
+            link.setObject(2, guestId);
+            link.executeUpdate();
+            booking.setInt(1, Campsite.DEFAULT_ID);
+            booking.setObject(2, date);
+            booking.setObject(3, bookingId);
+            booking.executeUpdate();
+        }
+        return bookingId;
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(VolcanoApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .profiles("durable")
+                // arguments, not default properties, they have to win over application.properties
+                .run(
+                        "--spring.datasource.url=" + url,
+                        "--volcano.snapshot.path=" + directory.resolve("volcano.snapshot"),
+                        "--springfox.documentation.enabled=false"
+                );
+    }
+}
@@ -0,0 +1,48 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.service.EmailBloomFilter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EmailBloomFilterTestSuite {
+
+    private static final int GUESTS = 1_000_000;
+
+    @Test
+    public void millionGuestsFitInFewMegabytesWithConfiguredFalsePositiveRate() {
+        EmailBloomFilter filter = new EmailBloomFilter(GUESTS, 0.01);
+        for (int i = 0; i < GUESTS; i++) {
+            filter.add(email("guest", i));
+        }
+
+        // every added email must be found, otherwise a second booking would go to the unique index
+        for (int i = 0; i < GUESTS; i++) {
+            Assertions.assertTrue(filter.mightContain(email("guest", i)));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < GUESTS; i++) {
+            if (filter.mightContain(email("stranger", i))) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / GUESTS;
+        Assertions.assertTrue(rate < 0.015, "false positive rate is %f".formatted(rate));
+        Assertions.assertTrue(filter.sizeInBytes() < 2 * 1024 * 1024, "filter takes %d bytes".formatted(filter.sizeInBytes()));
+    }
+
+    @Test
+    public void emptyFilterDoesNotContainAnything() {
+        EmailBloomFilter filter = new EmailBloomFilter(1000, 0.01);
+
+        Assertions.assertFalse(filter.mightContain("anton@mail.com"));
+        filter.add("anton@mail.com");
+        Assertions.assertTrue(filter.mightContain("anton@mail.com"));
+        // email is compared exactly, as unique index does
+        Assertions.assertFalse(filter.mightContain("Anton@mail.com"));
+    }
+
+    private static String email(String prefix, int i) {
+        return "%s%d@email.com".formatted(prefix, i);
+    }
+}
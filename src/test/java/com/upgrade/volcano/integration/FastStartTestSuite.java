@@ -0,0 +1,44 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.VolcanoApplication;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+// application with fast-start profile on its own DB
+public class FastStartTestSuite {
+
+    @Test
+    public void bookingPathIsCreatedOnStartAndOtherBeansOnFirstUse() throws IOException, InterruptedException {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(VolcanoApplication.class)
+                .logStartupInfo(false)
+                .profiles("fast-start")
+                .run("--server.port=0", "--spring.datasource.url=jdbc:h2:mem:fast-start-" + UUID.randomUUID())) {
+            Assertions.assertTrue(context.getBeanFactory().containsSingleton("availabilityIndex"));
+            Assertions.assertTrue(context.getBeanFactory().containsSingleton("bookingController"));
+            Assertions.assertFalse(context.getBeanFactory().containsSingleton("cacheStatsController"));
+            Assertions.assertFalse(context.containsBean("api"), "springfox docket is not needed with static spec");
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            Assertions.assertEquals(200, get(port, "/booking"));
+            Assertions.assertEquals(200, get(port, "/cache/availability/stats"));
+            // spec is generated by the build before tests, the same as it goes into the jar
+            Assertions.assertEquals(200, get(port, "/v2/api-docs"));
+        }
+    }
+
+    private static int get(int port, String path) throws IOException, InterruptedException {
+        return HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create("http://localhost:%d%s".formatted(port, path))).GET().build(),
+                HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,203 @@
+package com.upgrade.volcano.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.volcano.dto.BookingRequest;
+import com.upgrade.volcano.dto.BookingResponse;
+import com.upgrade.volcano.exception.BookingForUserExist;
+import com.upgrade.volcano.exception.IdempotencyKeyConflict;
+import com.upgrade.volcano.idempotency.IdempotencyStore;
+import com.upgrade.volcano.idempotency.InMemoryIdempotencyStore;
+import com.upgrade.volcano.idempotency.JdbcIdempotencyStore;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class IdempotencyTestSuite {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    private final LocalDate startDate = LocalDate.now().plusDays(10);
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        jdbcTemplate.update("delete from idempotency_key");
+        availabilityIndex.load();
+    }
+
+    @Test
+    public void retryGetsFirstBookingWithoutGoingToDb() throws Exception {
+        String key = UUID.randomUUID().toString();
+        UUID bookingId = bookingId(book(key, "retry@email.com").andExpect(status().isOk()));
+
+        statementCounter.reset();
+        Assertions.assertEquals(bookingId, bookingId(book(key, "retry@email.com").andExpect(status().isOk())));
+        Assertions.assertEquals(0, statementCounter.getRoundTrips());
+        Assertions.assertEquals(1, guestDao.count());
+    }
+
+    @Test
+    public void keyCantBeReusedForAnotherRequest() throws Exception {
+        String key = UUID.randomUUID().toString();
+        book(key, "first@email.com").andExpect(status().isOk());
+
+        book(key, "second@email.com")
+                .andExpect(status().isNotAcceptable())
+                .andExpect(jsonPath("$.code").value("IDEMPOTENCY_KEY_CONFLICT"));
+    }
+
+    @Test
+    public void failedBookingIsNotRemembered() throws Exception {
+        UUID firstBookingId = bookingId(book(null, "failed@email.com").andExpect(status().isOk()));
+        String key = UUID.randomUUID().toString();
+
+        // other dates, the same email
+        mockMvc.perform(post("/booking")
+                        .header("Idempotency-Key", key)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new BookingRequest(startDate.plusDays(5), startDate.plusDays(5), "failed", "failed@email.com"))))
+                .andExpect(status().isNotAcceptable())
+                .andExpect(jsonPath("$.code").value("BOOKING_FOR_USER_EXIST"));
+
+        mockMvc.perform(delete("/booking/" + firstBookingId)).andExpect(status().isOk());
+        book(key, "failed@email.com").andExpect(status().isOk());
+    }
+
+    @Test
+    public void emptyKeyIsRejected() throws Exception {
+        book(" ", "empty@email.com")
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("VALIDATION_ERROR"));
+    }
+
+    @Test
+    public void inMemoryDuplicatesWaitForFirstAttempt() throws Exception {
+        assertDuplicatesWaitForFirstAttempt(new InMemoryIdempotencyStore(100, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void jdbcDuplicatesWaitForFirstAttempt() throws Exception {
+        assertDuplicatesWaitForFirstAttempt(new JdbcIdempotencyStore(jdbcTemplate, Duration.ofMinutes(1), Duration.ofSeconds(10)));
+    }
+
+    @Test
+    public void inMemoryStoreForgetsFailures() {
+        assertFailureIsNotStored(new InMemoryIdempotencyStore(100, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    public void jdbcStoreForgetsFailures() {
+        assertFailureIsNotStored(new JdbcIdempotencyStore(jdbcTemplate, Duration.ofMinutes(1), Duration.ofSeconds(10)));
+    }
+
+    private void assertDuplicatesWaitForFirstAttempt(IdempotencyStore store) throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger bookings = new AtomicInteger();
+        UUID bookingId = UUID.randomUUID();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<UUID> first = executor.submit(() -> store.book("key", "request", () -> {
+                bookings.incrementAndGet();
+                firstStarted.countDown();
+                await(release);
+                return bookingId;
+            }));
+            Assertions.assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+
+            Future<UUID> duplicate = executor.submit(() -> store.book("key", "request", () -> {
+                bookings.incrementAndGet();
+                return UUID.randomUUID();
+            }));
+            // duplicate is waiting while first attempt is booking, but another request with the same key is rejected
+            Assertions.assertThrows(IdempotencyKeyConflict.class, () -> store.book("key", "another request", UUID::randomUUID));
+            Thread.sleep(100);
+            Assertions.assertFalse(duplicate.isDone());
+
+            release.countDown();
+            Assertions.assertEquals(bookingId, first.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(bookingId, duplicate.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, bookings.get());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    private void assertFailureIsNotStored(IdempotencyStore store) {
+        Assertions.assertThrows(BookingForUserExist.class, () -> store.book("key", "request", () -> {
+            throw new BookingForUserExist("failure@email.com");
+        }));
+        UUID bookingId = UUID.randomUUID();
+        Assertions.assertEquals(bookingId, store.book("key", "request", () -> bookingId));
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ResultActions book(String key, String email) throws Exception {
+        var request = post("/booking")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BookingRequest(startDate, startDate.plusDays(1), "guest", email)));
+        if (key != null) {
+            request.header("Idempotency-Key", key);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private UUID bookingId(ResultActions result) throws Exception {
+        return objectMapper.readValue(result.andReturn().getResponse().getContentAsString(), BookingResponse.class).bookingId();
+    }
+}
@@ -0,0 +1,116 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.controller.ControllerErrorHandler;
+import com.upgrade.volcano.metrics.TimedTransactionManager;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.BookingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+public class MetricsTestSuite {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+        cacheManager.getCache("availability").clear();
+    }
+
+    @Test
+    public void rejectionsAndConflictsAreCounted() throws Exception {
+        double rejectedBefore = count(ControllerErrorHandler.REJECTIONS, "code", "BOOKING_FOR_USER_EXIST");
+        double conflictsBefore = count(BookingService.CONFLICTS, "constraint", "guest_email");
+
+        LocalDate startDate = LocalDate.now().plusDays(5);
+        book(startDate, "metrics@email.com").andExpect(status().isOk());
+        // other dates, so request is rejected only because of the email
+        book(startDate.plusDays(5), "metrics@email.com").andExpect(status().isNotAcceptable());
+
+        Assertions.assertEquals(rejectedBefore + 1, count(ControllerErrorHandler.REJECTIONS, "code", "BOOKING_FOR_USER_EXIST"));
+        Assertions.assertEquals(conflictsBefore + 1, count(BookingService.CONFLICTS, "constraint", "guest_email"));
+    }
+
+    @Test
+    public void serviceMethodsAndTransactionsAreTimed() {
+        long booksBefore = timerCount(BookingService.TIMER, "method", "book");
+        long commitsBefore = timerCount(TimedTransactionManager.TRANSACTIONS, "outcome", "commit");
+        long rollbacksBefore = timerCount(TimedTransactionManager.TRANSACTIONS, "outcome", "rollback");
+
+        LocalDate startDate = LocalDate.now().plusDays(5);
+        bookingService.book(Campsite.DEFAULT_ID, startDate, startDate, "timed@email.com", "timed");
+        Assertions.assertThrows(RuntimeException.class,
+                () -> bookingService.book(Campsite.DEFAULT_ID, startDate.plusDays(3), startDate.plusDays(3), "timed@email.com", "timed"));
+
+        Assertions.assertEquals(booksBefore + 2, timerCount(BookingService.TIMER, "method", "book"));
+        Assertions.assertTrue(timerCount(TimedTransactionManager.TRANSACTIONS, "outcome", "commit") > commitsBefore);
+        Assertions.assertTrue(timerCount(TimedTransactionManager.TRANSACTIONS, "outcome", "rollback") > rollbacksBefore);
+    }
+
+    @Test
+    public void endpointCacheAndPoolMetricsAreBound() throws Exception {
+        mockMvc.perform(get("/booking")).andExpect(status().isOk());
+        mockMvc.perform(get("/booking")).andExpect(status().isOk());
+
+        Assertions.assertNotNull(meterRegistry.find("http.server.requests").tag("uri", "/booking").timer());
+        Assertions.assertNotNull(meterRegistry.find("cache.gets").tag("cache", "availability").tag("result", "hit").functionCounter());
+        Assertions.assertNotNull(meterRegistry.find("hikaricp.connections.acquire").timer());
+    }
+
+    private ResultActions book(LocalDate date, String email) throws Exception {
+        return mockMvc.perform(post("/booking")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"startDate\":\"%s\",\"endDate\":\"%s\",\"email\":\"%s\",\"name\":\"metrics\"}"
+                        .formatted(date, date, email)));
+    }
+
+    private double count(String name, String tag, String value) {
+        var counter = meterRegistry.find(name).tag(tag, value).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    // failed calls are recorded with exception tag, so there can be several timers
+    private long timerCount(String name, String tag, String value) {
+        return meterRegistry.find(name).tag(tag, value).timers().stream().mapToLong(Timer::count).sum();
+    }
+}
@@ -0,0 +1,36 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.controller.RejectionLog;
+import com.upgrade.volcano.exception.BookingForUserExist;
+import com.upgrade.volcano.exception.ErrorCode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+public class RejectionLogTestSuite {
+
+    @Test
+    public void onlyFirstRejectionOfIntervalIsLoggedPerCode() {
+        RejectionLog rejectionLog = new RejectionLog(LoggerFactory.getLogger(RejectionLogTestSuite.class), Duration.ofHours(1));
+
+        Assertions.assertTrue(rejectionLog.rejected(ErrorCode.BOOKING_FOR_DATE_EXIST, "first"));
+        Assertions.assertFalse(rejectionLog.rejected(ErrorCode.BOOKING_FOR_DATE_EXIST, "second"));
+        // every code has its own interval
+        Assertions.assertTrue(rejectionLog.rejected(ErrorCode.BOOKING_FOR_USER_EXIST, "first"));
+    }
+
+    @Test
+    public void everyRejectionIsLoggedWithoutInterval() {
+        RejectionLog rejectionLog = new RejectionLog(LoggerFactory.getLogger(RejectionLogTestSuite.class), Duration.ZERO);
+
+        Assertions.assertTrue(rejectionLog.rejected(ErrorCode.VALIDATION_ERROR, "first"));
+        Assertions.assertTrue(rejectionLog.rejected(ErrorCode.VALIDATION_ERROR, "second"));
+    }
+
+    @Test
+    public void businessExceptionsHaveNoStackTrace() {
+        Assertions.assertEquals(0, new BookingForUserExist("stack@email.com").getStackTrace().length);
+    }
+}
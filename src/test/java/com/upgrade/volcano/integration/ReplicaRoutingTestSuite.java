@@ -0,0 +1,112 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.VolcanoApplication;
+import com.upgrade.volcano.datasource.ReadWriteRoutingDataSource;
+import com.upgrade.volcano.datasource.ReplicaFeeder;
+import com.upgrade.volcano.exception.BookingForUserExist;
+import com.upgrade.volcano.model.Campsite;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.BookingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.UUID;
+
+// application with replica on, replica is copied from the primary only when test asks for it
+public class ReplicaRoutingTestSuite {
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    public void readOnlyTransactionIsAnsweredByReplica() throws SQLException {
+        try (ConfigurableApplicationContext context = start("1h")) {
+            ReplicaFeeder feeder = context.getBean(ReplicaFeeder.class);
+            GuestDao guestDao = context.getBean(GuestDao.class);
+            await(feeder);
+
+            context.getBean(BookingService.class).book(Campsite.DEFAULT_ID, today.plusDays(1), today.plusDays(1), "replica@email.com", "replica");
+
+            // replica is behind, but write transaction is on the primary
+            Assertions.assertFalse(guestDao.existsByEmail("replica@email.com"));
+            Assertions.assertEquals(Boolean.TRUE, new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                    .execute(status -> guestDao.existsByEmail("replica@email.com")));
+            feeder.feed();
+            Assertions.assertTrue(guestDao.existsByEmail("replica@email.com"));
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            Assertions.assertEquals(2, meterRegistry.get(ReadWriteRoutingDataSource.READ_ONLY).tag("target", "replica").counter().count());
+            Assertions.assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "primary").gauge());
+            Assertions.assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "replica").gauge());
+        }
+    }
+
+    // replica still has the guest of the cancelled booking, but the lookup gates a write, so primary decides
+    @Test
+    public void guestWhoCancelledCanBookAgainWhileReplicaIsBehind() throws SQLException {
+        try (ConfigurableApplicationContext context = start("1h")) {
+            ReplicaFeeder feeder = context.getBean(ReplicaFeeder.class);
+            BookingService bookingService = context.getBean(BookingService.class);
+            await(feeder);
+            UUID bookingId = bookingService.book(Campsite.DEFAULT_ID, today.plusDays(1), today.plusDays(1), "again@email.com", "again");
+            feeder.feed();
+
+            bookingService.cancel(bookingId);
+
+            Assertions.assertTrue(context.getBean(GuestDao.class).existsByEmail("again@email.com"));
+            bookingService.checkGuestHasNoBooking("again@email.com");
+            bookingService.book(Campsite.DEFAULT_ID, today.plusDays(2), today.plusDays(2), "again@email.com", "again");
+            Assertions.assertThrows(BookingForUserExist.class, () -> bookingService.checkGuestHasNoBooking("again@email.com"));
+        }
+    }
+
+    @Test
+    public void tooStaleReplicaIsNotUsed() {
+        try (ConfigurableApplicationContext context = start("0ms")) {
+            await(context.getBean(ReplicaFeeder.class));
+
+            context.getBean(BookingService.class).book(Campsite.DEFAULT_ID, today.plusDays(1), today.plusDays(1), "primary@email.com", "primary");
+
+            Assertions.assertTrue(context.getBean(GuestDao.class).existsByEmail("primary@email.com"));
+            Assertions.assertEquals(1, context.getBean(MeterRegistry.class)
+                    .get(ReadWriteRoutingDataSource.READ_ONLY).tag("target", "primary").counter().count());
+        }
+    }
+
+    private static ConfigurableApplicationContext start(String maxStaleness) {
+        String db = UUID.randomUUID().toString();
+        return new SpringApplicationBuilder(VolcanoApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                // arguments, not default properties, they have to win over application.properties
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:primary-" + db,
+                        "--volcano.datasource.replica.enabled=true",
+                        "--volcano.datasource.replica.url=jdbc:h2:mem:replica-" + db,
+                        "--volcano.datasource.replica.feed-interval=1h",
+                        "--volcano.datasource.replica.max-staleness=" + maxStaleness,
+                        "--springfox.documentation.enabled=false"
+                );
+    }
+
+    // the first copy is made when application is ready
+    private static void await(ReplicaFeeder feeder) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (feeder.getStaleness().compareTo(Duration.ofHours(1)) > 0) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "replica is not copied");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.upgrade.volcano.integration;
+
+import com.upgrade.volcano.contract.BookingContract;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.client.MockMvcWebTestClient;
+
+// the same contract is run against reactive variant in reactive module
+@SpringBootTest
+@AutoConfigureMockMvc
+public class ServletBookingContractTestSuite extends BookingContract {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Override
+    protected WebTestClient client() {
+        return MockMvcWebTestClient.bindTo(mockMvc).build();
+    }
+
+    @Override
+    protected void deleteAllBookings() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+        cacheManager.getCache("availability").clear();
+    }
+}
@@ -0,0 +1,144 @@
+package com.upgrade.volcano.integration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.upgrade.volcano.dto.BookingRequest;
+import com.upgrade.volcano.dto.BookingResponse;
+import com.upgrade.volcano.dto.UpdateBookingRequest;
+import com.upgrade.volcano.repository.BookingDao;
+import com.upgrade.volcano.repository.BookingToGuestDao;
+import com.upgrade.volcano.repository.GuestDao;
+import com.upgrade.volcano.service.AvailabilityIndex;
+import com.upgrade.volcano.service.GuestEmailIndex;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+/**
+ * Upper bounds of sql statements and DB round trips per request. If a change adds a query to an endpoint,
+ * it fails here and the bound has to be raised on purpose.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+public class StatementCountTestSuite {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private StatementCounter statementCounter;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private GuestEmailIndex guestEmailIndex;
+    @Autowired
+    private BookingDao bookingDao;
+    @Autowired
+    private GuestDao guestDao;
+    @Autowired
+    private BookingToGuestDao bookingToGuestDao;
+
+    private final LocalDate startDate = LocalDate.now().plusDays(10);
+    private final LocalDate endDate = startDate.plusDays(2);
+
+    @BeforeEach
+    public void cleanup() {
+        bookingToGuestDao.deleteAll();
+        bookingDao.deleteAll();
+        guestDao.deleteAll();
+        availabilityIndex.load();
+        // emails of previous tests would be "maybe" answers and cost a lookup
+        guestEmailIndex.load();
+        cacheManager.getCache("availability").clear();
+    }
+
+    @Test
+    public void availabilityDoesNotGoToDb() throws Exception {
+        // cache miss, cache hit and revalidation are all answered from memory
+        MvcResult result = assertStatements(0, 0, get("/booking"));
+        assertStatements(0, 0, get("/booking"));
+        assertStatements(0, 0, get("/booking").header(HttpHeaders.IF_NONE_MATCH, result.getResponse().getHeader(HttpHeaders.ETAG)));
+        assertStatements(0, 0, post("/booking/availability/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"windows\":[{},{\"startDate\":\"%s\",\"endDate\":\"%s\"}]}".formatted(startDate, endDate)));
+    }
+
+    @Test
+    public void bookAndRejections() throws Exception {
+        // guest insert, days as one prepared batch, then link
+        assertStatements(3, 5, post("/booking").contentType(MediaType.APPLICATION_JSON)
+                .content(json(new BookingRequest(startDate, endDate, "count", "count@email.com"))));
+
+        // same dates lose in memory, same email loses on a lookup before transaction
+        assertStatements(0, 0, post("/booking").contentType(MediaType.APPLICATION_JSON)
+                .content(json(new BookingRequest(startDate, endDate, "count", "other@email.com"))));
+        assertStatements(1, 1, post("/booking").contentType(MediaType.APPLICATION_JSON)
+                .content(json(new BookingRequest(startDate.plusDays(5), endDate.plusDays(5), "count", "count@email.com"))));
+    }
+
+    @Test
+    public void updates() throws Exception {
+        UUID bookingId = book();
+
+        // days delete and days batch
+        assertStatements(2, 4, update(bookingId, new UpdateBookingRequest(startDate.plusDays(1), endDate.plusDays(1), null, null)));
+        // one update of guest
+        assertStatements(1, 1, update(bookingId, new UpdateBookingRequest(null, null, null, "new@email.com")));
+        assertStatements(3, 5, update(bookingId, new UpdateBookingRequest(startDate, endDate, "new name", null)));
+        // nothing to change, only existence check
+        assertStatements(1, 1, update(bookingId, new UpdateBookingRequest(null, null, null, null)));
+    }
+
+    @Test
+    public void cancelAndMissingBooking() throws Exception {
+        UUID bookingId = book();
+
+        // days delete and guest delete, link goes by cascade
+        assertStatements(2, 2, delete("/booking/" + bookingId));
+        assertStatements(1, 1, delete("/booking/" + bookingId));
+    }
+
+    private MvcResult assertStatements(long maxRoundTrips, long maxStatements, RequestBuilder request) throws Exception {
+        statementCounter.reset();
+        MvcResult result = mockMvc.perform(request).andReturn();
+        String description = "%s %s".formatted(result.getRequest().getMethod(), result.getRequest().getRequestURI());
+        Assertions.assertTrue(statementCounter.getRoundTrips() <= maxRoundTrips,
+                "%s made %d round trips to DB, expected at most %d".formatted(description, statementCounter.getRoundTrips(), maxRoundTrips));
+        Assertions.assertTrue(statementCounter.getStatements() <= maxStatements,
+                "%s executed %d statements, expected at most %d".formatted(description, statementCounter.getStatements(), maxStatements));
+        return result;
+    }
+
+    private UUID book() throws Exception {
+        String response = mockMvc.perform(post("/booking").contentType(MediaType.APPLICATION_JSON)
+                        .content(json(new BookingRequest(startDate, endDate, "count", "count@email.com"))))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, BookingResponse.class).bookingId();
+    }
+
+    private RequestBuilder update(UUID bookingId, UpdateBookingRequest request) throws Exception {
+        return put("/booking/" + bookingId).contentType(MediaType.APPLICATION_JSON).content(json(request));
+    }
+
+    private String json(Object value) throws Exception {
+        return objectMapper.writeValueAsString(value);
+    }
+}
@@ -0,0 +1,41 @@
+package com.upgrade.volcano.integration;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts sql statements and round trips to DB. JDBC batch is one round trip with many statements in it.
+ * Tests reset it before a request and check the numbers after, so an extra query in any endpoint fails the build.
+ */
+public class StatementCounter implements QueryExecutionListener {
+
+    private final AtomicLong statements = new AtomicLong();
+    private final AtomicLong roundTrips = new AtomicLong();
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        roundTrips.incrementAndGet();
+        statements.addAndGet(execInfo.isBatch() ? execInfo.getBatchSize() : queryInfoList.size());
+    }
+
+    public void reset() {
+        statements.set(0);
+        roundTrips.set(0);
+    }
+
+    public long getStatements() {
+        return statements.get();
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+}
@@ -0,0 +1,39 @@
+package com.upgrade.volcano.integration;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps datasource of every test context, so all suites still share one context. It is switched on by surefire only:
+ * benchmarks and load test run with test classes on classpath, and they should measure plain datasource.
+ */
+@Configuration
+@ConditionalOnProperty(name = "volcano.sql.count-statements", havingValue = "true")
+public class StatementCountingConfig {
+
+    @Bean
+    public static StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor(StatementCounter statementCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(statementCounter)
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}